@@ -0,0 +1,39 @@
+#!/usr/bin/env bash
+# Compares the servlet module and this reactive module under the same load against the same running MySQL.
+# Both apps are pinned to the same cores so the result reads as requests per second per core.
+# Needs Linux taskset and hey (https://github.com/rakyll/hey).
+# Usage: load-test/compare-with-servlet.sh [cores] [clients] [duration] [pool-size]
+set -euo pipefail
+
+CORES=${1:-0-1}
+CLIENTS=${2:-1000}
+DURATION=${3:-60s}
+POOL=${4:-20}
+CORE_COUNT=$(taskset -c "$CORES" nproc)
+SERVLET_JAR=$(ls ../spring-boot-testing/target/spring-boot-testing-*.jar | head -1)
+REACTIVE_JAR=$(ls target/spring-boot-testing-reactive-*.jar | head -1)
+
+run() {
+  local name=$1 jar=$2 url=$3
+  shift 3
+  taskset -c "$CORES" java -jar "$jar" "$@" > "target/load-$name.log" 2>&1 &
+  local pid=$!
+  until curl -sf "$url" > /dev/null; do sleep 1; done
+  # warm up, then measure
+  hey -c 100 -z 15s "$url" > /dev/null
+  echo "== $name: $CLIENTS clients for $DURATION on $CORE_COUNT core(s)"
+  hey -c "$CLIENTS" -z "$DURATION" "$url" | tee "target/load-$name.txt" | grep -E "Requests/sec|50%|99%|\[[0-9]+\]"
+  awk -v cores="$CORE_COUNT" '/Requests\/sec/ {printf "   requests/sec per core: %.1f\n", $2 / cores}' "target/load-$name.txt"
+  kill "$pid"; wait "$pid" || true
+}
+
+# Both pools are fixed at $POOL connections. Both pages run one "where id > ? order by id limit ?"
+# and write json; the servlet page's etag is computed from the rows it read, no extra query. The
+# servlet module's sql logging and second level cache are off, so that nothing else is on its path
+run servlet "$SERVLET_JAR" "http://localhost:8080/api/employees?after=0&limit=50" \
+  --spring.datasource.hikari.maximum-pool-size="$POOL" --spring.datasource.hikari.minimum-idle="$POOL" \
+  --spring.jpa.show-sql=false --employee.l2-cache.enabled=false
+# the load only reads, so the reactive app reads the servlet module's rows instead of its own empty database
+run reactive "$REACTIVE_JAR" "http://localhost:8081/api/employees?after=0&limit=50" \
+  --spring.r2dbc.pool.max-size="$POOL" --spring.r2dbc.pool.initial-size="$POOL" \
+  --spring.r2dbc.url=r2dbc:mariadb://localhost:3306/jdtest --spring.sql.init.mode=never
@@ -0,0 +1,13 @@
+package com.jd.springboot;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class SpringBootTestingReactiveApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(SpringBootTestingReactiveApplication.class, args);
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.jd.springboot.controller;
+
+import com.jd.springboot.exception.EmployeeAlreadyExists;
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.services.EmployeeService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Same contract as the servlet EmployeeController. List endpoints return a Flux: with
+ * Accept: application/x-ndjson the employees are streamed as the client consumes them,
+ * demand flowing back to the database driver.
+ */
+@RestController
+@RequestMapping("/api/employees")
+public class EmployeeController {
+
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private EmployeeService employeeService;
+
+    public EmployeeController(EmployeeService employeeService) {
+        this.employeeService = employeeService;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Employee> createEmployee(@RequestBody Employee employee) {
+        return employeeService.saveEmployee(employee);
+    }
+
+    //Without after/limit the whole table is returned, with them a keyset page on id is returned
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Employee> getAllEmployees(@RequestParam(value = "after", required = false) Long after,
+                                          @RequestParam(value = "limit", required = false) Integer limit) {
+        if (after == null && limit == null) {
+            return employeeService.findAll();
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return employeeService.findPage(after == null ? 0L : after, pageSize);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Employee>> getEmployeeById(@PathVariable("id") Long empId) {
+        return employeeService.getEmployeeById(empId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Employee>> updateEmployee(@PathVariable("id") Long empId, @RequestBody Employee employee) {
+        return employeeService.getEmployeeById(empId)
+                .flatMap(savedEmployee ->
+                {
+                    savedEmployee.setFirstName(employee.getFirstName());
+                    savedEmployee.setLastName(employee.getLastName());
+                    savedEmployee.setEmail(employee.getEmail());
+                    return employeeService.updateEmployee(savedEmployee);
+                })
+                .map(updatedEmployee -> new ResponseEntity<>(updatedEmployee, HttpStatus.OK))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<String>> deleteEmployee(@PathVariable("id") Long empId) {
+        return employeeService.deleteEmployee(empId)
+                .thenReturn(new ResponseEntity<>("Employee deleted successfully", HttpStatus.OK));
+    }
+
+    @ExceptionHandler(EmployeeAlreadyExists.class)
+    public ResponseEntity<String> handleEmployeeAlreadyExists(EmployeeAlreadyExists e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailure(OptimisticLockingFailureException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+    }
+
+
+}
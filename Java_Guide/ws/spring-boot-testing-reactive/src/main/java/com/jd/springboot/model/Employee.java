@@ -0,0 +1,37 @@
+package com.jd.springboot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+
+@Table("employees")
+public class Employee {
+
+    public static final String EMAIL_UNIQUE_CONSTRAINT = "uk_employees_email";
+
+    @Id
+    private Long id;
+
+    @Column("fisrt_name")
+    private String firstName;
+
+    @Column("last_name")
+    private String lastName;
+
+    private String email;
+
+    @Version
+    private Long version;
+
+
+}
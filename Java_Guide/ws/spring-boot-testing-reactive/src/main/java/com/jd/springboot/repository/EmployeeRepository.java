@@ -0,0 +1,20 @@
+package com.jd.springboot.repository;
+
+import com.jd.springboot.model.Employee;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface EmployeeRepository extends ReactiveCrudRepository<Employee, Long> {
+
+    Mono<Employee> findByEmail(String email);
+
+    //Keyset pagination, seeks on the primary key instead of using an offset
+    @Query("select * from employees e where e.id > :afterId order by e.id limit :limit")
+    Flux<Employee> findPageAfter(long afterId, int limit);
+
+    //Rows are pulled from the driver as the subscriber requests them
+    @Query("select * from employees e order by e.id")
+    Flux<Employee> findAllOrderById();
+}
@@ -0,0 +1,23 @@
+package com.jd.springboot.services;
+
+import com.jd.springboot.model.Employee;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of the servlet EmployeeService.
+ */
+public interface EmployeeService {
+    public Mono<Employee> saveEmployee(Employee employee);
+
+    public Flux<Employee> findAll();
+
+    public Flux<Employee> findPage(long afterId, int limit);
+
+    public Mono<Employee> updateEmployee(Employee updatedEmployee);
+
+    public Mono<Void> deleteEmployee(Long id);
+
+    public Mono<Employee> getEmployeeById(Long id);
+
+}
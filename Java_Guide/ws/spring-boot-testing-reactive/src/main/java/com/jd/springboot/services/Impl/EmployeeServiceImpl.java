@@ -0,0 +1,68 @@
+package com.jd.springboot.services.Impl;
+
+import com.jd.springboot.exception.EmployeeAlreadyExists;
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.repository.EmployeeRepository;
+import com.jd.springboot.services.EmployeeService;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+public class EmployeeServiceImpl implements EmployeeService {
+
+    private EmployeeRepository employeeRepository;
+
+    public EmployeeServiceImpl(EmployeeRepository employeeRepository) {
+        this.employeeRepository = employeeRepository;
+    }
+
+    //The unique index on email does the duplicate check, so a create is a single insert
+    @Override
+    public Mono<Employee> saveEmployee(Employee employee) {
+        employee.setId(null);
+        employee.setVersion(null);
+        return employeeRepository.save(employee)
+                .onErrorMap(EmployeeServiceImpl::isEmailConstraintViolation,
+                        e -> new EmployeeAlreadyExists("Employee already present with this email id:" + employee.getEmail()));
+    }
+
+    @Override
+    public Flux<Employee> findAll() {
+        return employeeRepository.findAllOrderById();
+    }
+
+    @Override
+    public Flux<Employee> findPage(long afterId, int limit) {
+        return employeeRepository.findPageAfter(afterId, limit);
+    }
+
+    @Override
+    public Mono<Employee> updateEmployee(Employee updatedEmployee) {
+        return employeeRepository.save(updatedEmployee)
+                .onErrorMap(EmployeeServiceImpl::isEmailConstraintViolation,
+                        e -> new EmployeeAlreadyExists("Employee already present with this email id:" + updatedEmployee.getEmail()));
+    }
+
+    @Override
+    public Mono<Void> deleteEmployee(Long id) {
+        return employeeRepository.deleteById(id);
+    }
+
+    @Override
+    public Mono<Employee> getEmployeeById(Long id) {
+        return employeeRepository.findById(id);
+    }
+
+    //The driver reports every integrity violation the same way, only the constraint name tells a
+    //duplicate email from e.g. a missing column
+    private static boolean isEmailConstraintViolation(Throwable e) {
+        if (!(e instanceof DataIntegrityViolationException)) {
+            return false;
+        }
+        String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        return message != null && message.toLowerCase().contains(Employee.EMAIL_UNIQUE_CONSTRAINT);
+    }
+}
@@ -0,0 +1,9 @@
+create table if not exists employees (
+    id bigint not null auto_increment,
+    fisrt_name varchar(255) not null,
+    last_name varchar(255) not null,
+    email varchar(255) not null,
+    version bigint not null,
+    primary key (id),
+    constraint uk_employees_email unique (email)
+);
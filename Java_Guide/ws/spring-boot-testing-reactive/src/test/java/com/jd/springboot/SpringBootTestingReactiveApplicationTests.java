@@ -0,0 +1,13 @@
+package com.jd.springboot;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class SpringBootTestingReactiveApplicationTests {
+
+	@Test
+	void contextLoads() {
+	}
+
+}
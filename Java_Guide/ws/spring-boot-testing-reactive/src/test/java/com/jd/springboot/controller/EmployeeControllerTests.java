@@ -0,0 +1,128 @@
+package com.jd.springboot.controller;
+
+import com.jd.springboot.exception.EmployeeAlreadyExists;
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.services.EmployeeService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@WebFluxTest
+public class EmployeeControllerTests {
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private EmployeeService employeeService;
+
+    @Test
+    public void givenEmployee_whenCreateEmployee_thenReturnEmployee() {
+        //given
+        Employee employee = Employee.builder().firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build();
+
+        BDDMockito.given(employeeService.saveEmployee(ArgumentMatchers.any(Employee.class)))
+                .willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        //When
+        WebTestClient.ResponseSpec response = webTestClient.post().uri("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON).bodyValue(employee).exchange();
+
+        //Then
+        response.expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.firstName").isEqualTo(employee.getFirstName())
+                .jsonPath("$.email").isEqualTo(employee.getEmail());
+    }
+
+    @Test
+    public void givenExistingEmail_whenCreateEmployee_thenReturnConflict() {
+        //given
+        Employee employee = Employee.builder().firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build();
+
+        BDDMockito.given(employeeService.saveEmployee(ArgumentMatchers.any(Employee.class)))
+                .willReturn(Mono.error(new EmployeeAlreadyExists("Employee already present with this email id:jitu@gmail.com")));
+
+        //Then
+        webTestClient.post().uri("/api/employees").contentType(MediaType.APPLICATION_JSON).bodyValue(employee)
+                .exchange().expectStatus().isEqualTo(409);
+    }
+
+    @Test
+    public void givenListOfEmployee_whenFindAllEmployees_thenReturnEmployeeList() {
+        //given
+        BDDMockito.given(employeeService.findAll()).willReturn(Flux.just(
+                Employee.builder().id(1L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build(),
+                Employee.builder().id(2L).firstName("Jitu1").lastName("Birla1").email("jitu1@gmail.com").build()));
+
+        //Then
+        webTestClient.get().uri("/api/employees").accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.size()").isEqualTo(2)
+                .jsonPath("$[0].firstName").isEqualTo("Jitu");
+    }
+
+    @Test
+    public void givenAfterAndLimit_whenStreamingEmployees_thenReturnNdjsonPage() {
+        //given
+        BDDMockito.given(employeeService.findPage(10L, 2)).willReturn(Flux.just(
+                Employee.builder().id(11L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build(),
+                Employee.builder().id(12L).firstName("Jitu1").lastName("Birla1").email("jitu1@gmail.com").build()));
+
+        //When
+        Flux<Employee> employees = webTestClient.get().uri("/api/employees?after=10&limit=2")
+                .accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .returnResult(Employee.class).getResponseBody();
+
+        //Then
+        StepVerifier.create(employees.map(Employee::getId)).expectNext(11L, 12L).verifyComplete();
+    }
+
+    @Test
+    public void givenEmployeeId_whenFindById_thenReturnNotFound() {
+        //given
+        BDDMockito.given(employeeService.getEmployeeById(1L)).willReturn(Mono.empty());
+
+        //Then
+        webTestClient.get().uri("/api/employees/{id}", 1L).exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    public void givenEmployeeIdAndEmployee_whenUpdate_thenReturnUpdatedEmployee() {
+        //given
+        Employee savedEmployee = Employee.builder().id(1L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").version(1L).build();
+        Employee updatedEmployee = Employee.builder().firstName("Jitu1").lastName("Birla1").email("jitu1@gmail.com").build();
+
+        BDDMockito.given(employeeService.getEmployeeById(1L)).willReturn(Mono.just(savedEmployee));
+        BDDMockito.given(employeeService.updateEmployee(ArgumentMatchers.any(Employee.class)))
+                .willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        //Then
+        webTestClient.put().uri("/api/employees/{id}", 1L).contentType(MediaType.APPLICATION_JSON).bodyValue(updatedEmployee)
+                .exchange().expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(1)
+                .jsonPath("$.lastName").isEqualTo("Birla1");
+    }
+
+    @Test
+    public void givenEmployeeId_whenDeleteEmployee_thenReturn200() {
+        //given
+        BDDMockito.given(employeeService.deleteEmployee(1L)).willReturn(Mono.empty());
+
+        //Then
+        webTestClient.delete().uri("/api/employees/{id}", 1L).exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("Employee deleted successfully");
+    }
+
+}
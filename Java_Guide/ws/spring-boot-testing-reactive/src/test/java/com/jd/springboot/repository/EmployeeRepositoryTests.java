@@ -0,0 +1,70 @@
+package com.jd.springboot.repository;
+
+import com.jd.springboot.model.Employee;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.core.NestedExceptionUtils;
+import reactor.test.StepVerifier;
+
+@DataR2dbcTest
+public class EmployeeRepositoryTests {
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    private Employee employee;
+    private Employee employee1;
+
+    @BeforeEach
+    void setup() {
+        //Given
+        employee = Employee.builder().firstName("Jitendra").lastName("Birla").email("jitendra.birla@gmail.com").build();
+        employee1 = Employee.builder().firstName("Jitu").lastName("Birla").email("jitendra@gmail.com").build();
+        employeeRepository.deleteAll()
+                .then(employeeRepository.save(employee))
+                .then(employeeRepository.save(employee1))
+                .block();
+    }
+
+    @Test
+    @DisplayName("Testing employee object insertion")
+    public void givenEmployeeObject_whenSave_thenReturnEmployee() {
+        //Then
+        StepVerifier.create(employeeRepository.findById(employee.getId()))
+                .expectNextMatches(saved -> saved.getEmail().equals("jitendra.birla@gmail.com") && saved.getVersion() != null)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Testing all employees ordered by id")
+    public void givenAllEmployees_whenFetching_thenReturingAllEmployeesInIdOrder() {
+        //Then
+        StepVerifier.create(employeeRepository.findAllOrderById())
+                .expectNext(employee, employee1)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Test keyset page of employees after an id")
+    public void givenAfterId_whenFetchingPage_thenReturingEmployeesAfterIt() {
+        //Then
+        StepVerifier.create(employeeRepository.findPageAfter(employee.getId(), 10))
+                .expectNext(employee1)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Test duplicate email is rejected by the unique index")
+    public void givenExistingEmail_whenSave_thenDataIntegrityViolation() {
+        //given
+        Employee duplicate = Employee.builder().firstName("Jitu").lastName("B").email("jitendra@gmail.com").build();
+
+        //Then
+        StepVerifier.create(employeeRepository.save(duplicate))
+                .expectErrorMatches(error -> error instanceof org.springframework.dao.DataIntegrityViolationException
+                        && NestedExceptionUtils.getMostSpecificCause(error).getMessage().toLowerCase().contains(Employee.EMAIL_UNIQUE_CONSTRAINT))
+                .verify();
+    }
+
+}
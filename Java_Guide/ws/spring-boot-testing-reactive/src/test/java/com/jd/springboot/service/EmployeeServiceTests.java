@@ -0,0 +1,92 @@
+package com.jd.springboot.service;
+
+import com.jd.springboot.exception.EmployeeAlreadyExists;
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.repository.EmployeeRepository;
+import com.jd.springboot.services.Impl.EmployeeServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeServiceTests {
+
+    @Mock
+    EmployeeRepository employeeRepository;
+    @InjectMocks
+    EmployeeServiceImpl employeeService;
+    private Employee e;
+    private Employee employee1;
+
+    @BeforeEach
+    public void setup() {
+        e = Employee.builder().id(1L).firstName("Jitu").lastName("Birla").email("jdbirla@gmail.com").build();
+        employee1 = Employee.builder().id(2L).firstName("Jitu").lastName("Birla").email("jitendra@gmail.com").build();
+    }
+
+    @Test
+    @DisplayName("Test save employee using serviceimpl")
+    public void givenEmployee_whenSaveEmployee_thenEmployeeObject() {
+        //given
+        BDDMockito.given(employeeRepository.save(e)).willReturn(Mono.just(e));
+
+        //Then
+        StepVerifier.create(employeeService.saveEmployee(e)).expectNext(e).verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Test by given existing email and returning employee already exists")
+    public void givenExistingEmail_whenSaveEmployee_thenEmployeeAlreadyExists() {
+        //given
+        BDDMockito.given(employeeRepository.save(e)).willReturn(Mono.error(new DuplicateKeyException("uk_employees_email")));
+
+        //Then
+        StepVerifier.create(employeeService.saveEmployee(e)).expectError(EmployeeAlreadyExists.class).verify();
+    }
+
+    @Test
+    @DisplayName("Test other integrity violations are not reported as an existing employee")
+    public void givenMissingColumn_whenSaveEmployee_thenIntegrityViolationPassedOn() {
+        //given
+        BDDMockito.given(employeeRepository.save(e))
+                .willReturn(Mono.error(new DataIntegrityViolationException("NULL not allowed for column \"LAST_NAME\"")));
+
+        //Then
+        StepVerifier.create(employeeService.saveEmployee(e)).expectError(DataIntegrityViolationException.class).verify();
+    }
+
+    @Test
+    @DisplayName("Test find all employees is streamed with backpressure")
+    public void givenEmployeeList_whenFindAll_thenEmployeesFollowDemand() {
+        //given
+        BDDMockito.given(employeeRepository.findAllOrderById()).willReturn(Flux.just(e, employee1));
+
+        //Then
+        StepVerifier.create(employeeService.findAll(), 1)
+                .expectNext(e)
+                .thenRequest(1)
+                .expectNext(employee1)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Test delete employee ")
+    public void givenEmployeeId_whenDeleteEmployee_thenReturningNOting() {
+        //given
+        BDDMockito.given(employeeRepository.deleteById(1L)).willReturn(Mono.empty());
+
+        //Then
+        StepVerifier.create(employeeService.deleteEmployee(1L)).verifyComplete();
+    }
+
+}
@@ -0,0 +1,21 @@
+#!/usr/bin/env bash
+# Compares two JMH json results (mvn -P benchmarks test-compile exec:exec) and fails on a regression.
+# Throughput scores must not drop, average times must not grow, by more than the tolerance.
+# Needs jq. Usage: load-test/compare-jmh.sh baseline.json current.json [tolerance-percent]
+set -euo pipefail
+
+BASELINE=$1
+CURRENT=$2
+TOLERANCE=${3:-10}
+
+jq -n -r --slurpfile base "$BASELINE" --slurpfile current "$CURRENT" --argjson tolerance "$TOLERANCE" '
+  def key: .benchmark + (.params // {} | to_entries | map("," + .key + "=" + .value) | join(""));
+  ($base[0] | map({key: key, value: .}) | from_entries) as $before
+  | $current[0][]
+  | key as $k
+  | select($before[$k] != null)
+  | (.primaryMetric.score) as $now
+  | ($before[$k].primaryMetric.score) as $was
+  | ((if .mode == "thrpt" then ($was - $now) else ($now - $was) end) / $was * 100) as $worse
+  | [(if $worse > $tolerance then "REGRESSION" else "ok" end), $k, ($was | tostring), ($now | tostring), .primaryMetric.scoreUnit]
+  | @tsv' | tee /dev/stderr | { ! grep -q '^REGRESSION'; }
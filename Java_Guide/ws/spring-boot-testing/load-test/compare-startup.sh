@@ -0,0 +1,56 @@
+#!/usr/bin/env bash
+# Compares the startup phases of the default build and profile, the fast-startup profile with the
+# component index, and the same with a class data sharing archive. Needs a running MySQL that has
+# src/main/resources/employee-schema.sql applied, and JDK 13+ for -XX:ArchiveClassesAtExit.
+# Usage: load-test/compare-startup.sh [runs-per-variant]
+set -euo pipefail
+
+RUNS=${1:-3}
+APP=target/fast-startup
+MAIN=com.jd.springboot.SpringBootTestingApplication
+EXIT=(-Demployee.startup.report=true -Demployee.startup.exit-after-start=true)
+
+# CDS can't archive classes loaded from the nested jars of the fat jar, nor from a directory, so
+# the app runs exploded with its own classes put back in a plain jar. Every variant runs that way.
+# The default variant gets a build without the component index
+explode() {
+  rm -rf "$1" && mkdir -p "$1"
+  unzip -q "$(ls target/spring-boot-testing-*.jar | head -1)" -d "$1"
+  jar cf "$1/app.jar" -C "$1/BOOT-INF/classes" .
+}
+mvn -B -q package -DskipTests
+explode target/startup-default
+mvn -B -q -P fast-startup package -DskipTests
+explode "$APP"
+CP="$APP/app.jar:$APP/BOOT-INF/lib/*"
+
+# training run, the archive holds the classes loaded up to the end of startup
+java -XX:ArchiveClassesAtExit="$APP/app.jsa" "${EXIT[@]}" -Dspring.profiles.active=fast-startup -cp "$CP" "$MAIN" \
+  > target/startup-training.log 2>&1
+
+run() {
+  local name=$1 cp=$2; shift 2
+  for i in $(seq "$RUNS"); do
+    java "$@" "${EXIT[@]}" -cp "$cp" "$MAIN" > "target/startup-$name-$i.log" 2>&1
+  done
+  # the report's lines are "  <phase> <ms> ms", averaged over the runs per phase
+  cat target/startup-"$name"-*.log | sed -n '/Startup report/,/total, jvm start to ready/p' | grep '^  ' \
+    | awk -v name="$name" '{ ms = $(NF-1); $NF = ""; $(NF-1) = ""; sub(/^ +/, ""); sub(/ +$/, "");
+        if (!($0 in sum)) order[++n] = $0; sum[$0] += ms; count[$0]++ }
+        END { for (i = 1; i <= n; i++) printf "%s\t%s\t%d\n", name, order[i], sum[order[i]] / count[order[i]] }'
+}
+
+{
+  run default "target/startup-default/app.jar:target/startup-default/BOOT-INF/lib/*"
+  run fast-startup "$CP" -Dspring.profiles.active=fast-startup
+  run fast-startup-cds "$CP" -Dspring.profiles.active=fast-startup -XX:SharedArchiveFile="$APP/app.jsa"
+} | awk -F'\t' '
+  { if (!($2 in seen)) { seen[$2] = 1; phases[++n] = $2 } ms[$1, $2] = $3 }
+  END {
+    printf "%-52s %10s %14s %18s\n", "phase (ms, a bean includes its dependencies)", "default", "fast-startup", "fast-startup-cds"
+    for (i = 1; i <= n; i++) {
+      p = phases[i]
+      printf "%-52s %10s %14s %18s\n", p, ((("default", p) in ms) ? ms["default", p] : "-"),
+        ((("fast-startup", p) in ms) ? ms["fast-startup", p] : "-"), ((("fast-startup-cds", p) in ms) ? ms["fast-startup-cds", p] : "-")
+    }
+  }' | tee target/startup-comparison.txt
@@ -0,0 +1,26 @@
+#!/usr/bin/env bash
+# Compares platform threads and virtual threads under the same load against a running MySQL.
+# Needs JDK 21+ and hey (https://github.com/rakyll/hey). Usage: load-test/compare-threading.sh [clients] [duration]
+set -euo pipefail
+
+CLIENTS=${1:-1000}
+DURATION=${2:-60s}
+JAR=$(ls target/spring-boot-testing-*.jar | head -1)
+URL="http://localhost:8080/api/employees?limit=50"
+
+run() {
+  local name=$1; shift
+  java "$@" -jar "$JAR" > "target/load-$name.log" 2>&1 &
+  local pid=$!
+  until curl -sf "$URL" > /dev/null; do sleep 1; done
+  # warm up, then measure
+  hey -c 100 -z 15s "$URL" > /dev/null
+  echo "== $name: $CLIENTS clients for $DURATION"
+  hey -c "$CLIENTS" -z "$DURATION" "$URL" | tee "target/load-$name.txt" | grep -E "Requests/sec|50%|99%|\[[0-9]+\]"
+  kill "$pid"; wait "$pid" || true
+}
+
+# the pool settings of application-virtual-threads.properties for both runs, only the request threading differs
+run platform-threads -Dspring.datasource.hikari.maximum-pool-size=20 -Dspring.datasource.hikari.minimum-idle=20 \
+  -Dspring.datasource.hikari.connection-timeout=2000
+run virtual-threads -Dspring.profiles.active=virtual-threads
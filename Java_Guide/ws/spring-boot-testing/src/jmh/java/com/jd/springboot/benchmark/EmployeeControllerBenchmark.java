@@ -0,0 +1,101 @@
+package com.jd.springboot.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jd.springboot.cache.EmployeeCache;
+import com.jd.springboot.cache.EmployeeLookups;
+import com.jd.springboot.changes.EmployeeChangeLog;
+import com.jd.springboot.controller.EmployeeController;
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.search.EmployeeSearchIndex;
+import com.jd.springboot.services.Impl.EmployeeServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole MockMvc request path, dispatcher, argument binding, controller, service and json, over the
+ * in-memory repository.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeControllerBenchmark {
+
+    @Param({"100"})
+    int employees;
+
+    private final InMemoryEmployeeRepository repository = new InMemoryEmployeeRepository();
+
+    private MockMvc mockMvc;
+
+    private byte[] createBody;
+
+    private byte[] updateBody;
+
+    private long nextId;
+
+    private String allEmployeesTag;
+
+    @Setup(Level.Iteration)
+    public void setup() throws Exception {
+        repository.reset(employees);
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        EmployeeServiceImpl employeeService = new EmployeeServiceImpl(repository.proxy(), null,
+                new EmployeeCache(10000, Duration.ofMinutes(10), Duration.ofSeconds(30)), new EmployeeSearchIndex(0.3),
+                new EmployeeChangeLog(10000), new EmployeeLookups(new SimpleMeterRegistry()));
+        mockMvc = MockMvcBuilders.standaloneSetup(new EmployeeController(employeeService, null, objectMapper))
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+                .build();
+        createBody = objectMapper.writeValueAsBytes(Employee.builder().firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build());
+        updateBody = objectMapper.writeValueAsBytes(Employee.builder().firstName("Jitu").lastName("Karode").email("jitu@gmail.com").build());
+        allEmployeesTag = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse createEmployee() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.post("/api/employees").contentType(MediaType.APPLICATION_JSON).content(createBody))
+                .andReturn().getResponse();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse getAllEmployees() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get("/api/employees")).andReturn().getResponse();
+    }
+
+    //conditional read of the whole table, answered from the table stamp alone
+    @Benchmark
+    public MockHttpServletResponse getAllEmployeesNotModified() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get("/api/employees").header(HttpHeaders.IF_NONE_MATCH, allEmployeesTag))
+                .andReturn().getResponse();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse updateEmployee() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.put("/api/employees/{id}", nextId++ % employees + 1)
+                .contentType(MediaType.APPLICATION_JSON).content(updateBody)).andReturn().getResponse();
+    }
+}
@@ -0,0 +1,66 @@
+package com.jd.springboot.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import com.jd.springboot.model.Employee;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson (de)serialization of Employee payloads with the mapper settings Boot uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeJsonBenchmark {
+
+    @Param({"1", "100", "10000"})
+    int employees;
+
+    private ObjectMapper objectMapper;
+
+    private CollectionType listType;
+
+    private List<Employee> payload;
+
+    private byte[] json;
+
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        listType = objectMapper.getTypeFactory().constructCollectionType(List.class, Employee.class);
+        payload = new ArrayList<>(employees);
+        for (int i = 1; i <= employees; i++) {
+            payload.add(Employee.builder().id(i).firstName("Jitendra" + i).lastName("Birla").email("jitendra" + i + "@gmail.com").build());
+        }
+        json = objectMapper.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public List<Employee> deserialize() throws IOException {
+        return objectMapper.readValue(json, listType);
+    }
+}
@@ -0,0 +1,86 @@
+package com.jd.springboot.benchmark;
+
+import com.jd.springboot.cache.EmployeeCache;
+import com.jd.springboot.cache.EmployeeLookups;
+import com.jd.springboot.changes.EmployeeChangeLog;
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.search.EmployeeSearchIndex;
+import com.jd.springboot.services.Impl.EmployeeServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EmployeeServiceImpl over the in-memory repository: cache, search index and change stamp included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeServiceBenchmark {
+
+    @Param({"1000"})
+    int employees;
+
+    private final InMemoryEmployeeRepository repository = new InMemoryEmployeeRepository();
+
+    private EmployeeServiceImpl employeeService;
+
+    private long nextEmail;
+
+    //a fresh table each iteration so that the creates don't pile up
+    @Setup(Level.Iteration)
+    public void setup() {
+        repository.reset(employees);
+        EmployeeSearchIndex searchIndex = new EmployeeSearchIndex(0.3);
+        //saveAll and streamAll aren't benchmarked, they are the only users of the entity manager
+        employeeService = new EmployeeServiceImpl(repository.proxy(), null,
+                new EmployeeCache(10000, Duration.ofMinutes(10), Duration.ofSeconds(30)), searchIndex, new EmployeeChangeLog(10000), new EmployeeLookups(new SimpleMeterRegistry()));
+        employeeService.findAll().forEach(searchIndex::put);
+    }
+
+    @Benchmark
+    public Employee saveEmployee() {
+        long n = nextEmail++;
+        return employeeService.saveEmployee(Employee.builder().firstName("Jitu").lastName("Birla").email("jitu" + n + "@gmail.com").build());
+    }
+
+    @Benchmark
+    public Optional<Employee> getEmployeeById() {
+        return employeeService.getEmployeeById(nextEmail++ % employees + 1);
+    }
+
+    @Benchmark
+    public List<Employee> findAll() {
+        return employeeService.findAll();
+    }
+
+    @Benchmark
+    public Employee updateEmployee() {
+        Employee employee = employeeService.getEmployeeById(nextEmail++ % employees + 1).get();
+        employee.setLastName("Karode");
+        return employeeService.updateEmployee(employee);
+    }
+
+    @Benchmark
+    public List<Employee> searchEmployees() {
+        return employeeService.searchEmployees("jitnedra bir", 10);
+    }
+}
@@ -0,0 +1,96 @@
+package com.jd.springboot.benchmark;
+
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeTableStamp;
+import com.jd.springboot.repository.EmployeeRepository;
+import org.springframework.data.domain.Pageable;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Map backed stand-in for the methods of EmployeeRepository used by the benchmarked paths, so the
+ * benchmarks measure our code and not the database. Other methods throw.
+ */
+class InMemoryEmployeeRepository {
+
+    private final ConcurrentSkipListMap<Long, Employee> employees = new ConcurrentSkipListMap<>();
+
+    private final AtomicLong ids = new AtomicLong();
+
+    EmployeeRepository proxy() {
+        return (EmployeeRepository) Proxy.newProxyInstance(EmployeeRepository.class.getClassLoader(),
+                new Class<?>[]{EmployeeRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "save":
+                        case "saveAndFlush":
+                            return save((Employee) args[0]);
+                        case "findById":
+                            return Optional.ofNullable(employees.get((Long) args[0])).map(InMemoryEmployeeRepository::copy);
+                        case "findVersionById":
+                            return Optional.ofNullable(employees.get((Long) args[0])).map(Employee::getVersion);
+                        case "existsById":
+                            return employees.containsKey((Long) args[0]);
+                        case "findAll":
+                            return copies(employees.values(), Integer.MAX_VALUE);
+                        case "findPageAfter":
+                            return copies(employees.tailMap((Long) args[0], false).values(), ((Pageable) args[1]).getPageSize());
+                        case "findTableStamp":
+                            return EmployeeTableStamp.of(employees.values(), Employee::getId, Employee::getVersion);
+                        case "deleteByIds":
+                            int deleted = 0;
+                            for (Object id : (Collection<?>) args[0]) {
+                                deleted += employees.remove(id) == null ? 0 : 1;
+                            }
+                            return deleted;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "InMemoryEmployeeRepository";
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    void reset(int size) {
+        employees.clear();
+        ids.set(0);
+        for (int i = 0; i < size; i++) {
+            save(Employee.builder().firstName("Jitendra" + i).lastName("Birla").email("jitendra" + i + "@gmail.com").build());
+        }
+    }
+
+    //assigns the id and bumps the version on the passed employee, as Hibernate does
+    private Employee save(Employee employee) {
+        if (employee.getId() == 0) {
+            employee.setId(ids.incrementAndGet());
+        } else {
+            employee.setVersion(employee.getVersion() + 1);
+        }
+        employees.put(employee.getId(), copy(employee));
+        return employee;
+    }
+
+    private static List<Employee> copies(Collection<Employee> employees, int limit) {
+        List<Employee> copies = new ArrayList<>(Math.min(employees.size(), limit));
+        for (Employee employee : employees) {
+            if (copies.size() == limit) {
+                break;
+            }
+            copies.add(copy(employee));
+        }
+        return copies;
+    }
+
+    private static Employee copy(Employee employee) {
+        return employee.toBuilder().build();
+    }
+}
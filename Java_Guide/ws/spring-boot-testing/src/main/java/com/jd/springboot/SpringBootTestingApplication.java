@@ -2,12 +2,23 @@ package com.jd.springboot;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @SpringBootApplication
 public class SpringBootTestingApplication {
 
+	//startup steps kept for StartupReport, a few thousand are recorded
+	static final int STARTUP_STEPS = 10000;
+
 	public static void main(String[] args) {
-		SpringApplication.run(SpringBootTestingApplication.class, args);
+		SpringApplication application = new SpringApplication(SpringBootTestingApplication.class);
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+		ConfigurableApplicationContext context = application.run(args);
+		//training run of load-test/compare-startup.sh, the jvm writes its class data sharing archive on exit
+		if (context.getEnvironment().getProperty("employee.startup.exit-after-start", Boolean.class, false)) {
+			System.exit(SpringApplication.exit(context));
+		}
 	}
 
 }
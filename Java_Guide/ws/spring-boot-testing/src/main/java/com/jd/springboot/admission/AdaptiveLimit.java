@@ -0,0 +1,94 @@
+package com.jd.springboot.admission;
+
+/**
+ * Concurrency limit that follows the measured latency, after the gradient limiters of Netflix's
+ * concurrency-limits. A short and a long moving average of the response time are kept, while the
+ * short one stays within tolerance of the long one the limit grows by about its square root per
+ * sample, once requests queue up somewhere (Tomcat, the pool, the database) the short average
+ * rises and the limit shrinks in proportion, by half at most. A failed request cuts the limit by
+ * a tenth on top (AIMD). The limit only grows while it is actually used.
+ */
+public class AdaptiveLimit {
+
+    //latency may grow by this factor over the long average before the limit shrinks
+    static final double RTT_TOLERANCE = 1.5;
+
+    static final double SHORT_RTT_WEIGHT = 0.1;
+    static final double LONG_RTT_WEIGHT = 0.002;
+    static final double SMOOTHING = 0.2;
+    static final double DROP_FACTOR = 0.9;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    //all guarded by this
+    private double limit;
+    private int inFlight;
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    public AdaptiveLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    //The request finished without a latency worth learning from, e.g. a long poll
+    public synchronized void release() {
+        inFlight--;
+    }
+
+    public synchronized void onSuccess(long rttNanos) {
+        int inFlightBefore = inFlight--;
+        if (longRttNanos == 0) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+            return;
+        }
+        shortRttNanos += (rttNanos - shortRttNanos) * SHORT_RTT_WEIGHT;
+        longRttNanos += (rttNanos - longRttNanos) * LONG_RTT_WEIGHT;
+        //Once the latency recovers from a period of high latency, the long average would take hundreds of
+        //samples to come back down. Until then the gradient stays capped at 1 and a new slowdown wouldn't
+        //shrink the limit, so it's pulled down faster while it's more than twice the short one
+        if (longRttNanos > 2 * shortRttNanos) {
+            longRttNanos *= 0.95;
+        }
+        //an idle service tells nothing about how much concurrency it takes
+        if (inFlightBefore < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRttNanos / shortRttNanos));
+        double target = limit * gradient + Math.sqrt(limit);
+        setLimit(limit * (1 - SMOOTHING) + target * SMOOTHING);
+    }
+
+    //Failed or timed out, most likely from overload
+    public synchronized void onDropped() {
+        inFlight--;
+        setLimit(limit * DROP_FACTOR);
+    }
+
+    private void setLimit(double newLimit) {
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,166 @@
+package com.jd.springboot.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Admits a request only while its endpoint class is under its {@link AdaptiveLimit}, anything over
+ * it gets a 503 with Retry-After right away instead of waiting in Tomcat's queue or the pool.
+ * Reads come first: while reads are being turned away, bulk writes are turned away too. A long poll
+ * gives its slot back when the handler returns, it waits without using anything. A streamed body
+ * (/stream, /export) keeps its slot, and a connection, until it's written, its time isn't measured.
+ * A 503 with Retry-After from the service itself (write-behind queue, import slots, change stream
+ * subscribers) is back-pressure, not a failure, it doesn't cut the limit.
+ *
+ * Metrics: employee.admission.limit and employee.admission.in-flight gauges and the
+ * employee.admission.rejected counter, all tagged with the endpoint class.
+ */
+public class AdmissionInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT = AdmissionInterceptor.class.getName() + ".permit";
+
+    private final Map<EndpointClass, AdaptiveLimit> limits;
+
+    private final Map<EndpointClass, Counter> rejected = new EnumMap<>(EndpointClass.class);
+
+    private final String retryAfterSeconds;
+
+    private final long readPriorityNanos;
+
+    private volatile long lastReadRejectionNanos;
+
+    private volatile boolean readsRejected;
+
+    public AdmissionInterceptor(Map<EndpointClass, AdaptiveLimit> limits, Duration retryAfter, Duration readPriorityWindow,
+                                MeterRegistry meterRegistry) {
+        this.limits = new EnumMap<>(limits);
+        //Retry-After is whole seconds, rounded up so that it's never 0
+        this.retryAfterSeconds = String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000));
+        this.readPriorityNanos = readPriorityWindow.toNanos();
+        this.limits.forEach((endpointClass, limit) -> {
+            Gauge.builder("employee.admission.limit", limit, AdaptiveLimit::getLimit)
+                    .description("Current concurrency limit").tag("class", endpointClass.tag()).register(meterRegistry);
+            Gauge.builder("employee.admission.in-flight", limit, AdaptiveLimit::getInFlight)
+                    .description("Admitted requests not finished yet").tag("class", endpointClass.tag()).register(meterRegistry);
+            rejected.put(endpointClass, Counter.builder("employee.admission.rejected")
+                    .description("Requests turned away with 503").tag("class", endpointClass.tag()).register(meterRegistry));
+        });
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        //the async dispatch of a request admitted already
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        EndpointClass endpointClass = EndpointClass.of(request);
+        AdaptiveLimit limit = limits.get(endpointClass);
+        if (endpointClass == EndpointClass.BULK_WRITE && readsRejectedRecently()) {
+            return reject(endpointClass, response, "Busy serving reads, retry the bulk write later");
+        }
+        if (!limit.tryAcquire()) {
+            if (endpointClass == EndpointClass.READ) {
+                lastReadRejectionNanos = System.nanoTime();
+                readsRejected = true;
+            }
+            return reject(endpointClass, response, "Too many requests in flight, retry later");
+        }
+        request.setAttribute(PERMIT, new Permit(limit, System.nanoTime(), true));
+        return true;
+    }
+
+    //A stream's permit is taken by afterCompletion of its async dispatch
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Permit permit = takePermit(request);
+        if (permit == null) {
+            return;
+        }
+        if (isStream(handler)) {
+            request.setAttribute(PERMIT, new Permit(permit.limit, 0, false));
+        } else {
+            permit.limit.release();
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Permit permit = takePermit(request);
+        if (permit == null) {
+            return;
+        }
+        boolean backPressure = response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value()
+                && response.containsHeader(HttpHeaders.RETRY_AFTER);
+        if (ex != null || (response.getStatus() >= 500 && !backPressure)) {
+            permit.limit.onDropped();
+        } else if (backPressure || !permit.timed) {
+            permit.limit.release();
+        } else {
+            permit.limit.onSuccess(System.nanoTime() - permit.startNanos);
+        }
+    }
+
+    //the return types StreamingResponseBodyReturnValueHandler writes on another thread
+    private static boolean isStream(Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return false;
+        }
+        MethodParameter returnType = ((HandlerMethod) handler).getReturnType();
+        Class<?> bodyType = ResponseEntity.class.isAssignableFrom(returnType.getParameterType())
+                ? ResolvableType.forMethodParameter(returnType).getGeneric().resolve(Object.class)
+                : returnType.getParameterType();
+        return StreamingResponseBody.class.isAssignableFrom(bodyType);
+    }
+
+    private boolean readsRejectedRecently() {
+        return readsRejected && System.nanoTime() - lastReadRejectionNanos < readPriorityNanos;
+    }
+
+    private boolean reject(EndpointClass endpointClass, HttpServletResponse response, String message) throws IOException {
+        rejected.get(endpointClass).increment();
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write(message);
+        return false;
+    }
+
+    private static Permit takePermit(HttpServletRequest request) {
+        Permit permit = (Permit) request.getAttribute(PERMIT);
+        request.removeAttribute(PERMIT);
+        return permit;
+    }
+
+    private static class Permit {
+
+        private final AdaptiveLimit limit;
+
+        private final long startNanos;
+
+        private final boolean timed;
+
+        Permit(AdaptiveLimit limit, long startNanos, boolean timed) {
+            this.limit = limit;
+            this.startNanos = startNanos;
+            this.timed = timed;
+        }
+    }
+}
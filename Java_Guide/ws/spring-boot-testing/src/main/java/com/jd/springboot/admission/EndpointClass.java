@@ -0,0 +1,35 @@
+package com.jd.springboot.admission;
+
+import org.springframework.http.HttpMethod;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Requests of a class share a concurrency limit. Bulk writes are the ones whose cost grows with the
+ * request: batches, imports and the set based deletes and renames.
+ */
+public enum EndpointClass {
+
+    READ, WRITE, BULK_WRITE;
+
+    public static EndpointClass of(HttpServletRequest request) {
+        HttpMethod method = HttpMethod.resolve(request.getMethod());
+        if (method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS) {
+            return READ;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        //a post only because the ids don't fit in a url
+        if (path.endsWith("/multi-get")) {
+            return READ;
+        }
+        if (path.endsWith("/bulk") || path.endsWith("/import") || path.endsWith("/last-name")
+                || (method == HttpMethod.DELETE && path.equals("/api/employees"))) {
+            return BULK_WRITE;
+        }
+        return WRITE;
+    }
+
+    public String tag() {
+        return name().toLowerCase().replace('_', '-');
+    }
+}
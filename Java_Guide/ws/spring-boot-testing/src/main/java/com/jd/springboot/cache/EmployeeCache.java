@@ -0,0 +1,115 @@
+package com.jd.springboot.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.jd.springboot.model.Employee;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of employees by id. Lookups that found nothing are cached too,
+ * with a shorter ttl. Only copies go in and out so callers can't modify a cached employee.
+ */
+@Component
+public class EmployeeCache implements MeterBinder {
+
+    static final String CACHE_NAME = "employee-by-id";
+
+    private final Cache<Long, Optional<Employee>> cache;
+
+    public EmployeeCache(@Value("${employee.cache.maximum-size:10000}") long maximumSize,
+                         @Value("${employee.cache.ttl:10m}") Duration ttl,
+                         @Value("${employee.cache.negative-ttl:30s}") Duration negativeTtl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new PresenceBasedExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Employee> get(Long id, Function<Long, Optional<Employee>> loader) {
+        return cache.get(id, key -> loader.apply(key).map(EmployeeCache::copy)).map(EmployeeCache::copy);
+    }
+
+    //Misses are handed to the loader all at once, it answers for every id it's given, an empty
+    //Optional for an id without employee
+    public Map<Long, Optional<Employee>> getAll(Collection<Long> ids, Function<Set<Long>, Map<Long, Optional<Employee>>> loader) {
+        Map<Long, Optional<Employee>> employees = new LinkedHashMap<>();
+        cache.getAll(ids, missing -> {
+            Set<Long> keys = new HashSet<>();
+            missing.forEach(keys::add);
+            Map<Long, Optional<Employee>> loaded = new HashMap<>();
+            loader.apply(keys).forEach((id, employee) -> loaded.put(id, employee.map(EmployeeCache::copy)));
+            return loaded;
+        }).forEach((id, employee) -> employees.put(id, employee.map(EmployeeCache::copy)));
+        return employees;
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll(Iterable<Long> ids) {
+        cache.invalidateAll(ids);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    //cache.gets by result and cache.load.duration, a miss is a load that ran a query
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    public EmployeeCacheStats stats() {
+        CacheStats stats = cache.stats();
+        return new EmployeeCacheStats(stats.hitCount(), stats.missCount(), stats.evictionCount(), cache.estimatedSize());
+    }
+
+    private static Employee copy(Employee employee) {
+        return employee.toBuilder().build();
+    }
+
+    private static class PresenceBasedExpiry implements Expiry<Long, Optional<Employee>> {
+
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        PresenceBasedExpiry(long ttlNanos, long negativeTtlNanos) {
+            this.ttlNanos = ttlNanos;
+            this.negativeTtlNanos = negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(Long id, Optional<Employee> employee, long currentTime) {
+            return employee.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long id, Optional<Employee> employee, long currentTime, long currentDuration) {
+            return expireAfterCreate(id, employee, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long id, Optional<Employee> employee, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
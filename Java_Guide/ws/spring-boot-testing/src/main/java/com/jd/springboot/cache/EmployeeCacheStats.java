@@ -0,0 +1,20 @@
+package com.jd.springboot.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmployeeCacheStats {
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long evictionCount;
+
+    private long size;
+
+}
@@ -0,0 +1,61 @@
+package com.jd.springboot.cache;
+
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.routing.ReadYourWrites;
+import com.jd.springboot.sharding.ShardContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight lookups of one employee by email, so a burst of requests for the same email runs
+ * one query. Each caller gets its own copy of the employee. After a committed write new callers of
+ * the emails it touched start a fresh lookup, a lookup that began before the commit isn't shared
+ * with them. Lookups by id need none of this, the employee cache already runs one load per id.
+ */
+@Component
+public class EmployeeLookups {
+
+    private final SingleFlight<String, Optional<Employee>> byEmail;
+
+    public EmployeeLookups(MeterRegistry meterRegistry) {
+        this.byEmail = new SingleFlight<>("by-email", meterRegistry);
+    }
+
+    public Optional<Employee> byEmail(String email, Supplier<Optional<Employee>> lookup) {
+        return byEmail.load(key(email, ReadYourWrites.isPinned()), ignored -> lookup.get()).map(EmployeeLookups::copy);
+    }
+
+    //Both the lookups of pinned callers and those of the others, on the current shard
+    public void forgetInFlight(Collection<String> emails) {
+        for (String email : emails) {
+            if (email != null) {
+                byEmail.forget(key(email, true));
+                byEmail.forget(key(email, false));
+            }
+        }
+    }
+
+    public void forgetAllInFlight() {
+        byEmail.forgetAll();
+    }
+
+    //A pinned caller reads the primary, a lookup running on a replica is no answer for it, and the
+    //same email can be looked up on several shards at once. MySQL compares emails case-insensitively
+    private static String key(String email, boolean pinned) {
+        Integer shard = ShardContext.current();
+        String key = email.toLowerCase(Locale.ROOT);
+        if (shard != null) {
+            key = shard + "/" + key;
+        }
+        return pinned ? "primary:" + key : key;
+    }
+
+    private static Employee copy(Employee employee) {
+        return employee.toBuilder().build();
+    }
+}
@@ -0,0 +1,83 @@
+package com.jd.springboot.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Runs one load per key at a time. Callers asking for a key that is already being loaded wait for
+ * that load and get its result, or its exception, instead of loading it again. Nothing is kept once
+ * the load is done. Counted as employee.lookups, tagged with the lookup and whether the caller ran
+ * the load (executed) or waited for another one (coalesced).
+ */
+public class SingleFlight<K, V> {
+
+    static final String METRIC_NAME = "employee.lookups";
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter executed;
+
+    private final Counter coalesced;
+
+    public SingleFlight(String lookup, MeterRegistry meterRegistry) {
+        this.executed = counter(lookup, "executed", meterRegistry);
+        this.coalesced = counter(lookup, "coalesced", meterRegistry);
+    }
+
+    private static Counter counter(String lookup, String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder(METRIC_NAME)
+                .description("Lookups that ran a query (executed) or shared one already running (coalesced)")
+                .tag("lookup", lookup)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    public V load(K key, Function<K, V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+        executed.increment();
+        try {
+            V value = loader.apply(key);
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    //Callers of the key arriving from now on load again, those already waiting get the running load's result
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    private static <V> V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.jd.springboot.changes;
+
+import com.jd.springboot.exception.ChangeTokenExpired;
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeChange;
+import com.jd.springboot.model.EmployeeChanges;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ring buffer of the last writes committed through this instance, numbered in commit order. A
+ * token is the start time of the run and the number of the last change seen. Collection reads
+ * send the token current before their query as X-Change-Token, so a reader can load the
+ * employees and follow the feed from there. Once the ring wraps around older tokens expire.
+ * Writes made by another instance aren't in it, with several instances the feed has to come from
+ * the database's binlog instead.
+ */
+@Component
+public class EmployeeChangeLog {
+
+    private final String startedAt = Long.toString(System.currentTimeMillis(), 36);
+
+    private final EmployeeChange[] ring;
+
+    //number of the last appended change, guarded by this
+    private long last;
+
+    private final Set<CompletableFuture<Void>> waiters = ConcurrentHashMap.newKeySet();
+
+    public EmployeeChangeLog(@Value("${employee.changes.capacity:10000}") int capacity) {
+        this.ring = new EmployeeChange[capacity];
+    }
+
+    public void created(Employee employee) {
+        append(EmployeeChange.Type.CREATED, employee.getId(), employee.toBuilder().build());
+    }
+
+    public void updated(Employee employee) {
+        append(EmployeeChange.Type.UPDATED, employee.getId(), employee.toBuilder().build());
+    }
+
+    //partial update, the new state isn't known here
+    public void updated(long id) {
+        append(EmployeeChange.Type.UPDATED, id, null);
+    }
+
+    public void deleted(long id) {
+        append(EmployeeChange.Type.DELETED, id, null);
+    }
+
+    private void append(EmployeeChange.Type type, long id, Employee employee) {
+        synchronized (this) {
+            last++;
+            ring[(int) (last % ring.length)] = new EmployeeChange(token(last), type, id, employee);
+        }
+        for (CompletableFuture<Void> waiter : waiters) {
+            waiter.complete(null);
+        }
+    }
+
+    public synchronized String currentToken() {
+        return token(last);
+    }
+
+    //Changes after the token, at most limit of them
+    public synchronized EmployeeChanges since(String token, int limit) {
+        long after = parse(token);
+        if (after > last) {
+            throw new IllegalArgumentException("Change token " + token + " was never issued");
+        }
+        if (after < last - ring.length) {
+            throw new ChangeTokenExpired("Changes after " + token + " are no longer retained, reload the employees");
+        }
+        long to = Math.min(last, after + limit);
+        List<EmployeeChange> changes = new ArrayList<>((int) (to - after));
+        for (long number = after + 1; number <= to; number++) {
+            changes.add(ring[(int) (number % ring.length)]);
+        }
+        return new EmployeeChanges(changes, token(to), to < last);
+    }
+
+    //Completes with the next appended change, or once the wait is over
+    public CompletableFuture<Void> awaitChange(Duration wait) {
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        waiters.add(waiter);
+        waiter.whenComplete((done, error) -> waiters.remove(waiter));
+        return waiter.completeOnTimeout(null, wait.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private String token(long number) {
+        return startedAt + "-" + number;
+    }
+
+    private long parse(String token) {
+        int separator = token.lastIndexOf('-');
+        long number;
+        try {
+            number = Long.parseLong(token.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed change token " + token);
+        }
+        if (separator < 0 || number < 0) {
+            throw new IllegalArgumentException("Malformed change token " + token);
+        }
+        if (!token.substring(0, separator).equals(startedAt)) {
+            throw new ChangeTokenExpired("Change token " + token + " is from a previous run, reload the employees");
+        }
+        return number;
+    }
+}
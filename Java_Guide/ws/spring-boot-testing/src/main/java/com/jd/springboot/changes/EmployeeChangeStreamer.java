@@ -0,0 +1,143 @@
+package com.jd.springboot.changes;
+
+import com.jd.springboot.exception.ChangeStreamCapacityExceeded;
+import com.jd.springboot.exception.ChangeTokenExpired;
+import com.jd.springboot.model.EmployeeChange;
+import com.jd.springboot.model.EmployeeChanges;
+import com.jd.springboot.services.EmployeeService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes the change feed to Server-Sent Events subscribers. No thread is held per subscriber, a
+ * subscriber waits on the change log and a small pool writes the changes out once it wakes up,
+ * each event carries its token as id so a reconnect resumes with Last-Event-ID. A subscriber
+ * whose token expires gets a RESET event and is closed.
+ */
+@Slf4j
+@Component
+public class EmployeeChangeStreamer implements DisposableBean {
+
+    static final int BATCH_SIZE = 500;
+
+    private final EmployeeService employeeService;
+
+    private final Semaphore subscribers;
+
+    //an idle stream gets a comment this often, a client gone away is only noticed on a write
+    private final Duration heartbeat;
+
+    private final ExecutorService senders;
+
+    public EmployeeChangeStreamer(EmployeeService employeeService,
+                                  @Value("${employee.changes.max-subscribers:1000}") int maxSubscribers,
+                                  @Value("${employee.changes.heartbeat:15s}") Duration heartbeat,
+                                  @Value("${employee.changes.stream-threads:4}") int streamThreads) {
+        this.employeeService = employeeService;
+        this.subscribers = new Semaphore(maxSubscribers);
+        this.heartbeat = heartbeat;
+        this.senders = Executors.newFixedThreadPool(streamThreads, runnable -> {
+            Thread thread = new Thread(runnable, "employee-change-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //The token is checked before the stream is opened, so a bad one still gets a plain error response
+    public SseEmitter subscribe(String since) {
+        EmployeeChanges first = employeeService.getChanges(since, BATCH_SIZE);
+        if (!subscribers.tryAcquire()) {
+            throw new ChangeStreamCapacityExceeded("Too many change stream subscribers, retry later or long poll");
+        }
+        Subscription subscription = new Subscription();
+        senders.execute(() -> subscription.send(first));
+        return subscription.emitter;
+    }
+
+    @Override
+    public void destroy() {
+        senders.shutdownNow();
+    }
+
+    private class Subscription {
+
+        //the timeout is spring.mvc.async.request-timeout
+        private final SseEmitter emitter = new SseEmitter();
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private String cursor;
+
+        Subscription() {
+            emitter.onCompletion(this::close);
+            emitter.onTimeout(this::close);
+            emitter.onError(error -> close());
+        }
+
+        private void send(EmployeeChanges changes) {
+            try {
+                while (!closed.get()) {
+                    for (EmployeeChange change : changes.getChanges()) {
+                        emitter.send(SseEmitter.event().id(change.getToken()).name(change.getType().name())
+                                .data(change, MediaType.APPLICATION_JSON));
+                    }
+                    cursor = changes.getNextToken();
+                    if (!changes.isHasMore()) {
+                        break;
+                    }
+                    changes = employeeService.getChanges(cursor, BATCH_SIZE);
+                }
+                if (changes.getChanges().isEmpty()) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+                if (!closed.get()) {
+                    employeeService.awaitChanges(cursor, BATCH_SIZE, heartbeat).whenCompleteAsync(this::next, senders);
+                }
+            } catch (ChangeTokenExpired e) {
+                reset(e);
+            } catch (IOException | IllegalStateException e) {
+                //the client went away, or the emitter was completed meanwhile
+                close();
+            }
+        }
+
+        private void next(EmployeeChanges changes, Throwable error) {
+            if (error == null) {
+                send(changes);
+            } else if (error.getCause() instanceof ChangeTokenExpired) {
+                reset((ChangeTokenExpired) error.getCause());
+            } else {
+                log.warn("Change stream stopped", error);
+                emitter.completeWithError(error);
+                close();
+            }
+        }
+
+        private void reset(ChangeTokenExpired e) {
+            try {
+                emitter.send(SseEmitter.event().name("RESET").data(e.getMessage(), MediaType.TEXT_PLAIN));
+                emitter.complete();
+            } catch (IOException | IllegalStateException ignored) {
+                //the client went away already
+            }
+            close();
+        }
+
+        private void close() {
+            if (closed.compareAndSet(false, true)) {
+                subscribers.release();
+            }
+        }
+    }
+}
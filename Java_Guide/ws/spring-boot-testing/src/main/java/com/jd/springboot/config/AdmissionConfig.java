@@ -0,0 +1,52 @@
+package com.jd.springboot.config;
+
+import com.jd.springboot.admission.AdaptiveLimit;
+import com.jd.springboot.admission.AdmissionInterceptor;
+import com.jd.springboot.admission.EndpointClass;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Opt-in (employee.admission.enabled=true) load shedding of /api/**, see AdmissionInterceptor. Every
+ * endpoint class starts at employee.admission.initial-limit concurrent requests and adapts from
+ * there, between min-limit and max-limit.
+ */
+@Configuration
+@ConditionalOnProperty(name = "employee.admission.enabled", havingValue = "true")
+public class AdmissionConfig {
+
+    @Bean
+    public AdmissionInterceptor admissionInterceptor(@Value("${employee.admission.initial-limit:20}") int initialLimit,
+                                                     @Value("${employee.admission.min-limit:4}") int minLimit,
+                                                     @Value("${employee.admission.max-limit:200}") int maxLimit,
+                                                     @Value("${employee.admission.retry-after:1s}") Duration retryAfter,
+                                                     @Value("${employee.admission.read-priority-window:1s}") Duration readPriorityWindow,
+                                                     MeterRegistry meterRegistry) {
+        Map<EndpointClass, AdaptiveLimit> limits = new EnumMap<>(EndpointClass.class);
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            limits.put(endpointClass, new AdaptiveLimit(initialLimit, minLimit, maxLimit));
+        }
+        return new AdmissionInterceptor(limits, retryAfter, readPriorityWindow, meterRegistry);
+    }
+
+    //first in line, a rejected request shouldn't cost anything else
+    @Bean
+    public WebMvcConfigurer admissionConfigurer(AdmissionInterceptor admissionInterceptor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(admissionInterceptor).addPathPatterns("/api/**").order(Ordered.HIGHEST_PRECEDENCE);
+            }
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package com.jd.springboot.config;
+
+import com.jd.springboot.routing.ReadWriteRoutingDataSource;
+import com.jd.springboot.routing.ReadYourWritesInterceptor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Opt-in (employee.routing.enabled=true) read/write split. spring.datasource.* stays the primary,
+ * employee.routing.replica-urls lists the replicas, which get the primary's pool settings and
+ * credentials unless replica-username/replica-password are set. Read-only transactions go to a
+ * replica unless the caller wrote within employee.routing.sticky-window.
+ * Can't be combined with the Hibernate second level cache: rows read from a replica that lags
+ * would be put into the shared regions, and find by id is answered from there before any
+ * connection is routed, so every caller would get them until the region ttl.
+ */
+@Configuration
+@ConditionalOnProperty(name = "employee.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    public DataSourceRoutingConfig(@Value("${employee.l2-cache.enabled:false}") boolean l2CacheEnabled) {
+        if (l2CacheEnabled) {
+            throw new IllegalStateException("employee.routing.enabled and employee.l2-cache.enabled can't both be set");
+        }
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(HikariDataSource primaryDataSource,
+                                                                 @Value("${employee.routing.replica-urls}") List<String> replicaUrls,
+                                                                 @Value("${employee.routing.replica-username:${spring.datasource.username:}}") String username,
+                                                                 @Value("${employee.routing.replica-password:${spring.datasource.password:}}") String password,
+                                                                 @Value("${employee.routing.sticky-window:2s}") Duration stickyWindow) {
+        List<HikariDataSource> replicas = new ArrayList<>(replicaUrls.size());
+        for (String url : replicaUrls) {
+            //the pool starts with its first connection, like the primary's
+            HikariDataSource replica = new HikariDataSource();
+            primaryDataSource.copyStateTo(replica);
+            replica.setJdbcUrl(url);
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas, stickyWindow);
+    }
+
+    //Same hikaricp.connections.* meters as the primary, tagged with the pool name. Actuator only
+    //binds pools that are beans, the replicas are internal to the routing datasource
+    @Bean
+    public MeterBinder replicaPoolMetrics(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return registry -> readWriteRoutingDataSource.getReplicas().forEach(replica -> replica.setMetricRegistry(registry));
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+    @Bean
+    public WebMvcConfigurer readYourWritesConfigurer(@Value("${employee.routing.sticky-window:2s}") Duration stickyWindow) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new ReadYourWritesInterceptor(stickyWindow)).addPathPatterns("/api/**");
+            }
+        };
+    }
+}
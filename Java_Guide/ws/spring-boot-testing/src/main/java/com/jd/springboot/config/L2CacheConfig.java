@@ -0,0 +1,70 @@
+package com.jd.springboot.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.jd.springboot.model.Employee;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Creates the Hibernate cache regions up front with their own size and ttl and hands the cache
+ * manager to Hibernate, which is told to fail on any region not declared here. Hibernate keeps the
+ * regions consistent: an entity write replaces its entry and the timestamps region outdates cached
+ * query results of the modified tables. A bulk JPQL update or delete can't tell which rows it touched
+ * and evicts the whole employee region, PATCH, the last name rename and every delete are such
+ * statements, so a steady rate of them keeps the entity region nearly empty.
+ */
+@Configuration
+@ConditionalOnProperty(name = "employee.l2-cache.enabled", havingValue = "true")
+public class L2CacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${employee.l2-cache.statistics:false}") boolean statistics,
+                                              @Value("${employee.l2-cache.employees.maximum-size:10000}") long employeesMaximumSize,
+                                              @Value("${employee.l2-cache.employees.ttl:10m}") Duration employeesTtl,
+                                              @Value("${employee.l2-cache.queries.maximum-size:5000}") long queriesMaximumSize,
+                                              @Value("${employee.l2-cache.queries.ttl:5m}") Duration queriesTtl) {
+        //a cache manager of its own, the provider's default one is shared by every context of the jvm
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(URI.create("employee-l2-" + UUID.randomUUID()), provider.getDefaultClassLoader());
+        cacheManager.createCache(Employee.CACHE_REGION, region(statistics, employeesMaximumSize, employeesTtl));
+        cacheManager.createCache(Employee.QUERY_CACHE_REGION, region(statistics, queriesMaximumSize, queriesTtl));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, region(statistics, queriesMaximumSize, queriesTtl));
+        //one entry per table, must never be evicted or cached query results could be served after a write
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, region(statistics, null, null));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(boolean statistics, Long maximumSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> region = new CaffeineConfiguration<>();
+        region.setStatisticsEnabled(statistics);
+        if (maximumSize != null) {
+            region.setMaximumSize(OptionalLong.of(maximumSize));
+        }
+        if (ttl != null) {
+            region.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        }
+        return region;
+    }
+}
@@ -0,0 +1,34 @@
+package com.jd.springboot.config;
+
+import com.jd.springboot.metrics.StatementCountInterceptor;
+import com.jd.springboot.metrics.StatementCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Statement count per request. Repository, pool and request timers come from actuator, see
+ * management.* in application.properties.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new StatementCounter());
+    }
+
+    @Bean
+    public WebMvcConfigurer statementCountConfigurer(MeterRegistry meterRegistry) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new StatementCountInterceptor(meterRegistry)).addPathPatterns("/api/**");
+            }
+        };
+    }
+}
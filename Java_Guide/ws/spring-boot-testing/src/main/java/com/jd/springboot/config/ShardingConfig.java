@@ -0,0 +1,82 @@
+package com.jd.springboot.config;
+
+import com.jd.springboot.sharding.EmployeeIdGenerator;
+import com.jd.springboot.sharding.ShardRoutingDataSource;
+import com.jd.springboot.sharding.ShardedIdGenerator;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Opt-in (employee.sharding.enabled=true) hash sharding of the employees table over the databases
+ * of employee.sharding.urls, see ShardedEmployeeServiceImpl for what goes where. The shards share
+ * the credentials and pool settings of spring.datasource.*. Hibernate's ddl-auto would only reach
+ * shard 0, so it's turned off and every shard gets employee.sharding.schema at startup instead.
+ * Cached query results don't know which shard they came from, the query cache is turned off too.
+ * Can't be combined with the replica routing.
+ */
+@Configuration
+@ConditionalOnProperty(name = "employee.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    public ShardingConfig(@Value("${employee.routing.enabled:false}") boolean routingEnabled) {
+        if (routingEnabled) {
+            throw new IllegalStateException("employee.sharding.enabled and employee.routing.enabled can't both be set");
+        }
+    }
+
+    @Bean
+    @Primary
+    public ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties properties, Environment environment,
+                                                         @Value("${employee.sharding.urls}") List<String> urls,
+                                                         @Value("${employee.sharding.schema:classpath:employee-shard-schema.sql}") Resource schema) {
+        if (urls.size() > ShardedIdGenerator.MAX_SHARDS) {
+            throw new IllegalStateException("At most " + ShardedIdGenerator.MAX_SHARDS + " shards, the id has room for no more");
+        }
+        List<HikariDataSource> shards = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            HikariDataSource shard = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(shard));
+            shard.setPoolName("shard-" + shards.size());
+            DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(schema), shard);
+            shards.add(shard);
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    public ShardedIdGenerator shardedIdGenerator(@Value("${employee.sharding.node-id:0}") int nodeId) {
+        return new ShardedIdGenerator(nodeId);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardingHibernateCustomizer(ShardedIdGenerator shardedIdGenerator) {
+        return properties -> {
+            properties.put(EmployeeIdGenerator.SHARDED_ID_GENERATOR, shardedIdGenerator);
+            properties.put(AvailableSettings.HBM2DDL_AUTO, "none");
+            properties.put(AvailableSettings.USE_QUERY_CACHE, "false");
+        };
+    }
+
+    //Actuator only binds the hikaricp.* meters of pools that are beans
+    @Bean
+    public MeterBinder shardPoolMetrics(ShardRoutingDataSource shardRoutingDataSource) {
+        return registry -> shardRoutingDataSource.getShards().forEach(shard -> shard.setMetricRegistry(registry));
+    }
+}
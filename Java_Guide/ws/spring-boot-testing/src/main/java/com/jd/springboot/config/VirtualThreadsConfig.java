@@ -0,0 +1,47 @@
+package com.jd.springboot.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Opt-in (employee.virtual-threads.enabled=true, see application-virtual-threads.properties) mode
+ * running Tomcat request handling and async mvc work (streaming, export) on virtual threads, so
+ * a thread blocked on jdbc no longer caps throughput. Needs JDK 21+ at runtime; the project still
+ * compiles for 11, hence the reflective lookup. Database concurrency stays bounded by the Hikari
+ * pool, which is sized on its own.
+ */
+@Configuration
+@ConditionalOnProperty(name = "employee.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadsConfig implements WebMvcConfigurer {
+
+    private final ExecutorService virtualThreadExecutor = newVirtualThreadPerTaskExecutor();
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreadExecutor));
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("employee.virtual-threads.enabled needs JDK 21 or newer, running on "
+                    + Runtime.version());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the virtual thread executor", e);
+        }
+    }
+}
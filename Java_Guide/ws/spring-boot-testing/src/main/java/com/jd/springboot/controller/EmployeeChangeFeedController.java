@@ -0,0 +1,78 @@
+package com.jd.springboot.controller;
+
+import com.jd.springboot.changes.EmployeeChangeStreamer;
+import com.jd.springboot.exception.ChangeStreamCapacityExceeded;
+import com.jd.springboot.exception.ChangeTokenExpired;
+import com.jd.springboot.model.EmployeeChanges;
+import com.jd.springboot.services.EmployeeService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Change feed of the employees, as long poll or as Server-Sent Events. Start from the
+ * X-Change-Token header of a collection read, or without since= to only get what's committed
+ * from now on. The etag of a collection read is a table stamp, not a token.
+ */
+@RestController
+@RequestMapping("/api/employees/changes")
+public class EmployeeChangeFeedController {
+
+    static final int DEFAULT_CHANGES_LIMIT = 100;
+    static final int MAX_CHANGES_LIMIT = 1000;
+    static final Duration MAX_CHANGES_WAIT = Duration.ofSeconds(30);
+    static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private EmployeeService employeeService;
+
+    private EmployeeChangeStreamer employeeChangeStreamer;
+
+    public EmployeeChangeFeedController(EmployeeService employeeService, EmployeeChangeStreamer employeeChangeStreamer) {
+        this.employeeService = employeeService;
+        this.employeeChangeStreamer = employeeChangeStreamer;
+    }
+
+    //?waitMillis= holds the request until a change commits, at most MAX_CHANGES_WAIT
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<EmployeeChanges> getChanges(@RequestParam(value = "since", required = false) String since,
+                                                         @RequestParam(value = "limit", defaultValue = "" + DEFAULT_CHANGES_LIMIT) int limit,
+                                                         @RequestParam(value = "waitMillis", defaultValue = "0") long waitMillis) {
+        if (limit < 1 || limit > MAX_CHANGES_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_CHANGES_LIMIT);
+        }
+        if (waitMillis <= 0) {
+            return CompletableFuture.completedFuture(employeeService.getChanges(since, limit));
+        }
+        Duration wait = Duration.ofMillis(Math.min(waitMillis, MAX_CHANGES_WAIT.toMillis()));
+        return employeeService.awaitChanges(since, limit, wait);
+    }
+
+    //A reconnecting EventSource sends the id of the last event it got, it wins over since=
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(value = "since", required = false) String since,
+                                    @RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId) {
+        return employeeChangeStreamer.subscribe(lastEventId != null ? lastEventId : since);
+    }
+
+    @ExceptionHandler(ChangeTokenExpired.class)
+    public ResponseEntity<String> handleChangeTokenExpired(ChangeTokenExpired e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.GONE);
+    }
+
+    @ExceptionHandler(ChangeStreamCapacityExceeded.class)
+    public ResponseEntity<String> handleChangeStreamCapacityExceeded(ChangeStreamCapacityExceeded e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+}
@@ -1,12 +1,43 @@
 package com.jd.springboot.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jd.springboot.cache.EmployeeCacheStats;
+import com.jd.springboot.exception.EmailChangeAcrossShards;
+import com.jd.springboot.exception.EmployeeAlreadyExists;
+import com.jd.springboot.exception.ImportCapacityExceeded;
+import com.jd.springboot.exception.ResurceNotFound;
+import com.jd.springboot.exception.SearchIndexLoading;
+import com.jd.springboot.model.BulkOperationResult;
 import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeBulkResult;
+import com.jd.springboot.model.EmployeeField;
+import com.jd.springboot.model.EmployeeImportReport;
+import com.jd.springboot.model.EmployeeMultiGetResult;
+import com.jd.springboot.model.EmployeePatch;
+import com.jd.springboot.model.EmployeeProjection;
+import com.jd.springboot.model.EmployeeTableStamp;
+import com.jd.springboot.routing.ReadYourWrites;
+import com.jd.springboot.services.EmployeeImportService;
 import com.jd.springboot.services.EmployeeService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Created by jd birla on 24-11-2022 at 16:40
@@ -15,10 +46,28 @@ import java.util.List;
 @RequestMapping("/api/employees")
 public class EmployeeController {
 
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+
+    static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    static final int EXPORT_FLUSH_EVERY = 500;
+    static final int MAX_BULK_IDS = 10000;
+    static final int DEFAULT_SEARCH_LIMIT = 10;
+    static final int MAX_SEARCH_LIMIT = 50;
+
+    //change feed token to follow a collection read from, see EmployeeChangeFeedController
+    static final String CHANGE_TOKEN = "X-Change-Token";
+
     private EmployeeService employeeService;
 
-    public EmployeeController(EmployeeService employeeService) {
+    private EmployeeImportService employeeImportService;
+
+    private ObjectMapper objectMapper;
+
+    public EmployeeController(EmployeeService employeeService, EmployeeImportService employeeImportService, ObjectMapper objectMapper) {
         this.employeeService = employeeService;
+        this.employeeImportService = employeeImportService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -27,32 +76,228 @@ public class EmployeeController {
         return employeeService.saveEmployee(employee);
     }
 
+    //Returns one result per submitted employee, in the submitted order
+    @PostMapping("/bulk")
+    public List<EmployeeBulkResult> createEmployees(@RequestBody List<Employee> employees) {
+        return employeeService.saveAll(employees);
+    }
+
+    //Incremental import of an ndjson or csv upload, committed chunk by chunk
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public EmployeeImportReport importEmployees(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                InputStream body) throws IOException {
+        EmployeeImportService.Format format = APPLICATION_NDJSON.includes(contentType)
+                ? EmployeeImportService.Format.NDJSON : EmployeeImportService.Format.CSV;
+        return employeeImportService.importEmployees(body, format);
+    }
+
+    //Without after/limit the whole table is returned, with them a keyset page on id is returned
+    //and the id of the last employee of a full page is the cursor of the next one
+    //The etag is the table stamp counted over the returned rows. Only a conditional read of the whole
+    //table runs the aggregate query, a matching If-None-Match then gets a 304 without the read.
+    //A conditional page is read and compared, its tag covers just that page.
+    //The change token is taken before the query, following the feed from it misses no later write
     @GetMapping
-    public List<Employee> getAllEmployees() {
-        return employeeService.findAll();
+    public ResponseEntity<List<Employee>> getAllEmployees(@RequestParam(value = "after", required = false) Long after,
+                                                          @RequestParam(value = "limit", required = false) Integer limit,
+                                                          WebRequest request) {
+        if (after == null && limit == null) {
+            if (isCollectionNotModified(request)) {
+                return null;
+            }
+            String changeToken = employeeService.getChangeStamp();
+            List<Employee> employees = employeeService.findAll();
+            return ResponseEntity.ok().eTag(rowsTag(employees, Employee::getId, Employee::getVersion))
+                    .header(CHANGE_TOKEN, changeToken).body(employees);
+        }
+        String changeToken = employeeService.getChangeStamp();
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Employee> page = employeeService.findPage(after == null ? 0L : after, pageSize);
+        String pageTag = rowsTag(page, Employee::getId, Employee::getVersion);
+        if (request.checkNotModified(pageTag)) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(pageTag).header(CHANGE_TOKEN, changeToken);
+        if (page.size() == pageSize) {
+            long nextAfter = page.get(page.size() - 1).getId();
+            response.header(HttpHeaders.LINK, "</api/employees?after=" + nextAfter + "&limit=" + pageSize + ">; rel=\"next\"");
+        }
+        return response.body(page);
+    }
+
+    //Same as above with only the selected columns, e.g. ?fields=id,email
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<EmployeeProjection>> getAllEmployees(@RequestParam("fields") String fields,
+                                                                    @RequestParam(value = "after", required = false) Long after,
+                                                                    @RequestParam(value = "limit", required = false) Integer limit,
+                                                                    WebRequest request) {
+        Set<EmployeeField> selectedFields = EmployeeField.parse(fields);
+        if (after == null && limit == null) {
+            if (isCollectionNotModified(request)) {
+                return null;
+            }
+            String changeToken = employeeService.getChangeStamp();
+            List<EmployeeProjection> employees = employeeService.findAll(selectedFields);
+            return ResponseEntity.ok().eTag(rowsTag(employees, EmployeeProjection::getId, EmployeeProjection::getVersion))
+                    .header(CHANGE_TOKEN, changeToken).body(employees);
+        }
+        String changeToken = employeeService.getChangeStamp();
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<EmployeeProjection> page = employeeService.findPage(selectedFields, after == null ? 0L : after, pageSize);
+        String pageTag = rowsTag(page, EmployeeProjection::getId, EmployeeProjection::getVersion);
+        if (request.checkNotModified(pageTag)) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(pageTag).header(CHANGE_TOKEN, changeToken);
+        if (page.size() == pageSize) {
+            long nextAfter = page.get(page.size() - 1).getId();
+            response.header(HttpHeaders.LINK, "</api/employees?fields=" + selectedFields.stream().map(EmployeeField::getAttribute).collect(Collectors.joining(","))
+                    + "&after=" + nextAfter + "&limit=" + pageSize + ">; rel=\"next\"");
+        }
+        return response.body(page);
+    }
+
+    //Streams the whole table as a json array without materializing it
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody streamAllEmployees() {
+        return outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                employeeService.streamAll(employee -> writeEmployee(generator, employee));
+                generator.writeEndArray();
+            }
+        };
+    }
+
+    //Newline delimited json export of the whole table, flushed every EXPORT_FLUSH_EVERY employees
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportEmployees(@RequestParam(value = "gzip", defaultValue = "false") boolean gzip) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(APPLICATION_NDJSON);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(outputStream -> {
+            //commit the headers before the query runs so the first byte goes out right away
+            outputStream.flush();
+            OutputStream target = gzip ? new GZIPOutputStream(outputStream, 8192, true) : outputStream;
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(target)) {
+                generator.setRootValueSeparator(null);
+                int[] written = {0};
+                employeeService.streamAll(employee -> {
+                    writeEmployee(generator, employee);
+                    try {
+                        generator.writeRaw('\n');
+                        if (++written[0] % EXPORT_FLUSH_EVERY == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        });
+    }
+
+    //Type-ahead search on names and email, tolerates typos from three characters on
+    @GetMapping("/search")
+    public List<Employee> searchEmployees(@RequestParam("q") String query,
+                                          @RequestParam(value = "limit", required = false) Integer limit) {
+        if (query.isBlank()) {
+            throw new IllegalArgumentException("q must not be blank");
+        }
+        int size = limit == null ? DEFAULT_SEARCH_LIMIT : Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
+        return employeeService.searchEmployees(query, size);
     }
 
+    @GetMapping("/cache/stats")
+    public EmployeeCacheStats getCacheStats() {
+        return employeeService.getCacheStats();
+    }
+
+    //One lookup for a list of ids, e.g. ?ids=1,2,3, cached employees first and one query for the rest
+    @GetMapping(params = {"ids", "!fields"})
+    public EmployeeMultiGetResult getEmployeesByIds(@RequestParam("ids") List<Long> ids) {
+        if (ids.size() > MAX_BULK_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_IDS + " ids can be looked up at once");
+        }
+        requireIds(ids);
+        return employeeService.getEmployeesByIds(ids);
+    }
+
+    //Both would match the fields listing above too, answer 400 instead of an ambiguous mapping
+    @GetMapping(params = {"ids", "fields"})
+    public EmployeeMultiGetResult getEmployeesByIds(@RequestParam("ids") List<Long> ids, @RequestParam("fields") String fields) {
+        throw new IllegalArgumentException("fields can't be combined with ids, look up the ids without fields");
+    }
+
+    //Same for lists too long for a url, as a form: ids=1,2,3 or ids=1&ids=2
+    @PostMapping(value = "/multi-get", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public EmployeeMultiGetResult postEmployeesByIds(@RequestParam("ids") List<Long> ids) {
+        return getEmployeesByIds(ids);
+    }
+
+    @GetMapping(params = "email")
+    public ResponseEntity<Employee> getEmployeeByEmail(@RequestParam("email") String email) {
+        return employeeService.getEmployeeByEmail(email)
+                .map(employee -> ResponseEntity.ok().eTag(weakTag(String.valueOf(employee.getVersion()))).body(employee))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    //The etag is the version of the employee, If-None-Match is checked against the version column alone
     @GetMapping("/{id}")
-    public ResponseEntity<Employee> getEmployeeById(@PathVariable("id") Long empId) {
+    public ResponseEntity<Employee> getEmployeeById(@PathVariable("id") Long empId, WebRequest request) {
+        if (isNotModified(empId, request)) {
+            return null;
+        }
         return employeeService.getEmployeeById(empId)
-                .map(ResponseEntity::ok)
+                .map(employee -> ResponseEntity.ok().eTag(weakTag(String.valueOf(employee.getVersion()))).body(employee))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<EmployeeProjection> getEmployeeById(@PathVariable("id") Long empId, @RequestParam("fields") String fields,
+                                                              WebRequest request) {
+        Set<EmployeeField> selectedFields = EmployeeField.parse(fields);
+        if (isNotModified(empId, request)) {
+            return null;
+        }
+        return employeeService.getEmployeeById(empId, selectedFields)
+                .map(employee -> ResponseEntity.ok().eTag(weakTag(String.valueOf(employee.getVersion()))).body(employee))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    //Replaces the names and the email. The expected version comes from If-Match, without it from
+    //the primary, never from the cached copy, which misses the writes of the other instances
     @PutMapping("/{id}")
-    public ResponseEntity<Employee> updateEmployee(@PathVariable("id") Long empId, @RequestBody Employee employee) {
-        return employeeService.getEmployeeById(empId)
-                .map(savedEmployee ->
-                {
-                    savedEmployee.setFirstName(employee.getFirstName());
-                    savedEmployee.setLastName(employee.getLastName());
-                    savedEmployee.setEmail(employee.getEmail());
-                    Employee updatedEmployee = employeeService.updateEmployee(savedEmployee);
-                    return new ResponseEntity<>(updatedEmployee, HttpStatus.OK);
+    public ResponseEntity<Employee> updateEmployee(@PathVariable("id") Long empId,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                   @RequestBody Employee employee) {
+        Long expectedVersion = ifMatch != null ? parseVersionTag(ifMatch) : null;
+        return ReadYourWrites.onPrimary(() -> employeeService.getEmployeeVersion(empId))
+                .map(currentVersion -> {
+                    Employee replacement = employee.toBuilder().id(empId)
+                            .version(expectedVersion != null ? expectedVersion : currentVersion).build();
+                    Employee updatedEmployee = employeeService.updateEmployee(replacement);
+                    return ResponseEntity.ok().eTag(weakTag(String.valueOf(updatedEmployee.getVersion()))).body(updatedEmployee);
                 })
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    //Applies only the sent fields, the expected version comes from If-Match or from the body
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchEmployee(@PathVariable("id") Long empId,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                              @RequestBody EmployeePatch patch) {
+        Long expectedVersion = ifMatch != null ? parseVersionTag(ifMatch) : patch.getVersion();
+        if (expectedVersion == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).build();
+        }
+        long version = employeeService.patchEmployee(empId, expectedVersion, patch);
+        return ResponseEntity.noContent().eTag(weakTag(String.valueOf(version))).build();
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<String> deleteEmployee(@PathVariable("id") Long empId) {
         employeeService.deleteEmployee(empId);
@@ -61,5 +306,139 @@ public class EmployeeController {
 
     }
 
+    @DeleteMapping(params = "ids")
+    public BulkOperationResult deleteEmployees(@RequestParam("ids") List<Long> ids) {
+        if (ids.size() > MAX_BULK_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_IDS + " ids can be deleted at once");
+        }
+        requireIds(ids);
+        return new BulkOperationResult("delete", employeeService.deleteEmployees(ids));
+    }
+
+    @DeleteMapping(params = "emailDomain")
+    public BulkOperationResult deleteEmployeesByEmailDomain(@RequestParam("emailDomain") String emailDomain) {
+        if (emailDomain.isBlank()) {
+            throw new IllegalArgumentException("emailDomain must not be blank");
+        }
+        return new BulkOperationResult("delete", employeeService.deleteEmployeesByEmailDomain(emailDomain));
+    }
+
+    //Rewrites the last name of every employee named from
+    @PatchMapping(value = "/last-name", params = {"from", "to"})
+    public BulkOperationResult renameLastName(@RequestParam("from") String from, @RequestParam("to") String to) {
+        return new BulkOperationResult("update", employeeService.renameLastName(from, to));
+    }
+
+    @ExceptionHandler(EmployeeAlreadyExists.class)
+    public ResponseEntity<String> handleEmployeeAlreadyExists(EmployeeAlreadyExists e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(EmailChangeAcrossShards.class)
+    public ResponseEntity<String> handleEmailChangeAcrossShards(EmailChangeAcrossShards e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ResurceNotFound.class)
+    public ResponseEntity<String> handleResourceNotFound(ResurceNotFound e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailure(OptimisticLockingFailureException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ImportCapacityExceeded.class)
+    public ResponseEntity<String> handleImportCapacityExceeded(ImportCapacityExceeded e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "30").body(e.getMessage());
+    }
+
+    @ExceptionHandler(SearchIndexLoading.class)
+    public ResponseEntity<String> handleSearchIndexLoading(SearchIndexLoading e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    //?ids=1,,2 binds a null for the empty element
+    private static void requireIds(List<Long> ids) {
+        if (ids.isEmpty() || ids.contains(null)) {
+            throw new IllegalArgumentException("ids must be a list of ids without empty elements");
+        }
+    }
+
+    private boolean isNotModified(Long empId, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) == null) {
+            return false;
+        }
+        return employeeService.getEmployeeVersion(empId)
+                .map(version -> request.checkNotModified(weakTag(String.valueOf(version))))
+                .orElse(false);
+    }
+
+    //The aggregate query only runs when there is a tag to compare it with. Compared here first:
+    //checkNotModified also sets the etag when nothing matches, and the read that follows then
+    //couldn't answer with the tag of the rows it returned
+    private boolean isCollectionNotModified(WebRequest request) {
+        String[] ifNoneMatch = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String stampTag = weakTag(employeeService.getCollectionStamp().toTag());
+        return anyTagMatches(ifNoneMatch, stampTag) && request.checkNotModified(stampTag);
+    }
+
+    //Weak comparison, as for If-None-Match: W/"2-7-8-0" and "2-7-8-0" match
+    private static boolean anyTagMatches(String[] headerValues, String tag) {
+        String opaqueTag = opaqueTag(tag);
+        for (String headerValue : headerValues) {
+            for (String candidate : headerValue.split(",")) {
+                String trimmed = candidate.trim();
+                if (trimmed.equals("*") || opaqueTag(trimmed).equals(opaqueTag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String opaqueTag(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static <T> String rowsTag(List<T> rows, ToLongFunction<T> id, ToLongFunction<T> version) {
+        return weakTag(EmployeeTableStamp.of(rows, id, version).toTag());
+    }
+
+    //Weak, the same version or stamp is sent as json, cbor or smile and with any field selection
+    private static String weakTag(String tag) {
+        return "W/\"" + tag + "\"";
+    }
+
+    //"3", W/"3" -> 3
+    private static Long parseVersionTag(String entityTag) {
+        String tag = entityTag.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        try {
+            return Long.valueOf(tag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match must carry the version of the employee, got " + entityTag);
+        }
+    }
+
+    private static void writeEmployee(JsonGenerator generator, Employee employee) {
+        try {
+            generator.writeObject(employee);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
 
 }
@@ -0,0 +1,62 @@
+package com.jd.springboot.controller;
+
+import com.jd.springboot.exception.ResurceNotFound;
+import com.jd.springboot.exception.WriteBehindQueueFull;
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeCreateAck;
+import com.jd.springboot.services.EmployeeWriteBehindService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous creates through the write-behind queue, answered with 202 and an acknowledgement
+ * that can be polled or awaited at its Location.
+ */
+@RestController
+@RequestMapping("/api/employees/async")
+@ConditionalOnProperty(name = "employee.write-behind.enabled", havingValue = "true")
+public class EmployeeWriteBehindController {
+
+    static final Duration MAX_ACK_WAIT = Duration.ofSeconds(30);
+
+    private EmployeeWriteBehindService employeeWriteBehindService;
+
+    public EmployeeWriteBehindController(EmployeeWriteBehindService employeeWriteBehindService) {
+        this.employeeWriteBehindService = employeeWriteBehindService;
+    }
+
+    @PostMapping
+    public ResponseEntity<EmployeeCreateAck> createEmployee(@RequestBody Employee employee) {
+        EmployeeCreateAck ack = employeeWriteBehindService.submit(employee);
+        return ResponseEntity.accepted().location(URI.create("/api/employees/async/" + ack.getTicket())).body(ack);
+    }
+
+    //?waitMillis= holds the request until the create is flushed, at most MAX_ACK_WAIT
+    @GetMapping("/{ticket}")
+    public CompletableFuture<EmployeeCreateAck> getAck(@PathVariable("ticket") long ticket,
+                                                       @RequestParam(value = "waitMillis", defaultValue = "0") long waitMillis) {
+        if (waitMillis <= 0) {
+            return CompletableFuture.completedFuture(employeeWriteBehindService.getAck(ticket));
+        }
+        Duration wait = Duration.ofMillis(Math.min(waitMillis, MAX_ACK_WAIT.toMillis()));
+        return employeeWriteBehindService.awaitAck(ticket, wait);
+    }
+
+    @ExceptionHandler(WriteBehindQueueFull.class)
+    public ResponseEntity<String> handleWriteBehindQueueFull(WriteBehindQueueFull e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(e.getMessage());
+    }
+
+    @ExceptionHandler(ResurceNotFound.class)
+    public ResponseEntity<String> handleResourceNotFound(ResurceNotFound e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.jd.springboot.exception;
+
+/**
+ * Raised when the change stream already has as many subscribers as it's allowed to serve.
+ */
+public class ChangeStreamCapacityExceeded extends RuntimeException {
+
+    public ChangeStreamCapacityExceeded(String message) {
+        super(message, null, false, false);
+    }
+}
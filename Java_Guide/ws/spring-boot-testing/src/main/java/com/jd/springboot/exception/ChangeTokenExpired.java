@@ -0,0 +1,13 @@
+package com.jd.springboot.exception;
+
+/**
+ * Raised when the changes after a token are no longer all in the change log, because it was
+ * issued by a previous run or the log has wrapped around since. The reader has to reload the
+ * employees and follow the feed from the X-Change-Token header of that read.
+ */
+public class ChangeTokenExpired extends RuntimeException {
+
+    public ChangeTokenExpired(String message) {
+        super(message, null, false, false);
+    }
+}
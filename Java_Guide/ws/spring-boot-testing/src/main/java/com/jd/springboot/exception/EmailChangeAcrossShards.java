@@ -0,0 +1,12 @@
+package com.jd.springboot.exception;
+
+/**
+ * Raised in sharded mode when an email change would leave the employee on another shard than the
+ * new email hashes to. The unique index of that shard wouldn't see the email then.
+ */
+public class EmailChangeAcrossShards extends RuntimeException {
+
+    public EmailChangeAcrossShards(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,12 @@
+package com.jd.springboot.exception;
+
+/**
+ * Raised when the unique index on employees.email rejects an insert. It is an expected
+ * outcome of a create, so neither the stack trace nor suppressed exceptions are recorded.
+ */
+public class EmployeeAlreadyExists extends RuntimeException {
+
+    public EmployeeAlreadyExists(String message) {
+        super(message, null, false, false);
+    }
+}
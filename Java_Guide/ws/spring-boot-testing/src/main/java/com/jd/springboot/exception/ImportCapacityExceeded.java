@@ -0,0 +1,11 @@
+package com.jd.springboot.exception;
+
+/**
+ * Raised when the configured number of imports is already running.
+ */
+public class ImportCapacityExceeded extends RuntimeException {
+
+    public ImportCapacityExceeded(String message) {
+        super(message, null, false, false);
+    }
+}
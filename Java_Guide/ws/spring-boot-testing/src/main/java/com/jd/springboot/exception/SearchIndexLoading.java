@@ -0,0 +1,11 @@
+package com.jd.springboot.exception;
+
+/**
+ * Raised by a search while the search index is loaded in the background.
+ */
+public class SearchIndexLoading extends RuntimeException {
+
+    public SearchIndexLoading(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,11 @@
+package com.jd.springboot.exception;
+
+/**
+ * Raised when the write-behind queue has no room left, nothing was accepted.
+ */
+public class WriteBehindQueueFull extends RuntimeException {
+
+    public WriteBehindQueueFull(String message) {
+        super(message, null, false, false);
+    }
+}
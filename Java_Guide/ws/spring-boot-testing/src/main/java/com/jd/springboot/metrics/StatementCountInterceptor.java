@@ -0,0 +1,56 @@
+package com.jd.springboot.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Records the number of statements run by each request as employee.request.statements, tagged like
+ * http.server.requests so both can be read side by side.
+ *
+ * Async requests (the exports, the change stream, long polls) aren't recorded. Their statements run
+ * on executor threads the counter doesn't follow, and the dispatch that completes them starts over
+ * from 0, so they would only pull the distribution down.
+ */
+public class StatementCountInterceptor implements AsyncHandlerInterceptor {
+
+    static final String METRIC_NAME = "employee.request.statements";
+
+    private final MeterRegistry meterRegistry;
+
+    public StatementCountInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        StatementCounter.reset();
+        return true;
+    }
+
+    //Only called for the first dispatch of an async request, which isn't recorded either
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        StatementCounter.reset();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return;
+        }
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder(METRIC_NAME)
+                .description("Statements prepared by Hibernate while handling the request")
+                .baseUnit("statements")
+                .tag("method", request.getMethod())
+                .tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+                .register(meterRegistry)
+                .record(StatementCounter.current());
+    }
+}
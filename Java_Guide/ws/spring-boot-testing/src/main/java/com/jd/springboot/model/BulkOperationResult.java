@@ -0,0 +1,17 @@
+package com.jd.springboot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkOperationResult {
+
+    private String operation;
+
+    //number of rows deleted or updated
+    private long affected;
+
+}
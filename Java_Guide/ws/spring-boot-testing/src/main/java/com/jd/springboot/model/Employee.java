@@ -5,6 +5,12 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
 import javax.persistence.*;
 
 /**
@@ -13,13 +19,28 @@ import javax.persistence.*;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 
 @Entity
-@Table(name = "employees")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Employee.CACHE_REGION)
+@Table(name = "employees", uniqueConstraints = @UniqueConstraint(name = Employee.EMAIL_UNIQUE_CONSTRAINT, columnNames = "email"))
 public class Employee {
+
+    public static final String EMAIL_UNIQUE_CONSTRAINT = "uk_employees_email";
+
+    //second level cache regions, sized in L2CacheConfig
+    public static final String CACHE_REGION = "employees";
+    public static final String QUERY_CACHE_REGION = "employee-queries";
+
+    //Pooled sequence (a table on MySQL) so that inserts can be batched, IDENTITY disables jdbc batching
+    //In sharded mode the ids are made up locally instead, see EmployeeIdGenerator
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employees_seq")
+    @GenericGenerator(name = "employees_seq", strategy = "com.jd.springboot.sharding.EmployeeIdGenerator", parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "employees_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")
+    })
     private long id;
 
     @Column(name = "fisrt_name" , nullable = false)
@@ -31,5 +52,10 @@ public class Employee {
     @Column( nullable = false)
     private String email;
 
+    //Optimistic concurrency, bumped by every update
+    @Version
+    @Column(nullable = false)
+    private long version;
+
 
 }
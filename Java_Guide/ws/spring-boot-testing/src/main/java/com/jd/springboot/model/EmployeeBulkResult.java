@@ -0,0 +1,29 @@
+package com.jd.springboot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeeBulkResult {
+
+    public enum Status {
+        CREATED, DUPLICATE, INVALID
+    }
+
+    //position of the employee in the submitted batch
+    private int index;
+
+    private Long id;
+
+    private String email;
+
+    private Status status;
+
+    private String message;
+
+}
@@ -0,0 +1,32 @@
+package com.jd.springboot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One committed write of the change feed. The employee is the state right after the write, it's
+ * left out for deletes and for updates that only touched some columns, read the employee again
+ * to get those.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class EmployeeChange {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    //pass it as since= to resume right after this change
+    private String token;
+
+    private Type type;
+
+    private long id;
+
+    private Employee employee;
+
+}
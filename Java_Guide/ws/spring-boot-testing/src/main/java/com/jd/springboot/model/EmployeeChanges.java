@@ -0,0 +1,26 @@
+package com.jd.springboot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A page of the change feed, oldest change first. Ask again with nextToken to continue.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class EmployeeChanges {
+
+    private List<EmployeeChange> changes;
+
+    private String nextToken;
+
+    //more changes are already waiting after nextToken
+    private boolean hasMore;
+
+}
@@ -0,0 +1,37 @@
+package com.jd.springboot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Acknowledgement of a create accepted by the write-behind queue. The employee is only durable
+ * once the status is CREATED.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class EmployeeCreateAck {
+
+    public enum Status {
+        //queued, lost if the instance dies now
+        PENDING,
+        CREATED, DUPLICATE, INVALID,
+        //the insert failed for another reason, see message
+        FAILED
+    }
+
+    private long ticket;
+
+    private Status status;
+
+    //set once CREATED
+    private Long id;
+
+    private String email;
+
+    private String message;
+
+}
@@ -0,0 +1,59 @@
+package com.jd.springboot.model;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Columns a client can select with ?fields=, named after the Employee attributes.
+ */
+public enum EmployeeField {
+
+    ID("id", Employee::getId),
+    FIRST_NAME("firstName", Employee::getFirstName),
+    LAST_NAME("lastName", Employee::getLastName),
+    EMAIL("email", Employee::getEmail),
+    VERSION("version", Employee::getVersion);
+
+    private final String attribute;
+
+    private final Function<Employee, Object> getter;
+
+    EmployeeField(String attribute, Function<Employee, Object> getter) {
+        this.attribute = attribute;
+        this.getter = getter;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public Object valueOf(Employee employee) {
+        return getter.apply(employee);
+    }
+
+    //"id,email" -> [ID, EMAIL]
+    public static Set<EmployeeField> parse(String fields) {
+        Set<EmployeeField> parsed = EnumSet.noneOf(EmployeeField.class);
+        for (String name : fields.split(",")) {
+            String attribute = name.trim();
+            if (attribute.isEmpty()) {
+                continue;
+            }
+            EmployeeField field = null;
+            for (EmployeeField candidate : values()) {
+                if (candidate.attribute.equals(attribute)) {
+                    field = candidate;
+                }
+            }
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown employee field " + attribute + ", expected id, firstName, lastName, email or version");
+            }
+            parsed.add(field);
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("fields must name at least one field");
+        }
+        return parsed;
+    }
+}
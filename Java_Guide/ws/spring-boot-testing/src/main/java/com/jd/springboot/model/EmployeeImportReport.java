@@ -0,0 +1,39 @@
+package com.jd.springboot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class EmployeeImportReport {
+
+    private long processed;
+
+    private long imported;
+
+    private long rejected;
+
+    private int chunksCommitted;
+
+    //only the first rejections are listed, rejected keeps the full count
+    private List<RejectedRow> rejectedRows = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RejectedRow {
+
+        //1-based line of the upload
+        private long line;
+
+        private String email;
+
+        private String reason;
+
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.jd.springboot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The employees of a list of ids in the order they were asked for, a repeated id only once.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class EmployeeMultiGetResult {
+
+    private List<Employee> employees;
+
+    //ids without an employee, in the order they were asked for
+    private List<Long> missing;
+
+    public static EmployeeMultiGetResult of(List<Long> ids, Map<Long, Employee> found) {
+        List<Employee> employees = new ArrayList<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Employee employee = found.get(id);
+            if (employee != null) {
+                employees.add(employee);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new EmployeeMultiGetResult(employees, missing);
+    }
+
+}
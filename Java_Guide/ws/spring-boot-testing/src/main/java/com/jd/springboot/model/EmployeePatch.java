@@ -0,0 +1,26 @@
+package com.jd.springboot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Body of a PATCH, fields left null are not changed.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeePatch {
+
+    private String firstName;
+
+    private String lastName;
+
+    private String email;
+
+    //expected current version, used when no If-Match header is sent
+    private Long version;
+
+}
@@ -0,0 +1,78 @@
+package com.jd.springboot.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Selected columns of one employee, read without creating an entity. Only the selected fields
+ * are written, in field order, by a serializer that doesn't go through bean introspection.
+ */
+@JsonSerialize(using = EmployeeProjection.Serializer.class)
+public class EmployeeProjection {
+
+    private final Set<EmployeeField> fields;
+
+    //indexed by EmployeeField ordinal, may hold unselected values such as the id used as paging cursor
+    private final Object[] values = new Object[EmployeeField.values().length];
+
+    public EmployeeProjection(Set<EmployeeField> fields) {
+        this.fields = fields;
+    }
+
+    //the employee is already loaded so every value is kept, only the selected ones are written
+    public static EmployeeProjection of(Employee employee, Set<EmployeeField> fields) {
+        EmployeeProjection projection = new EmployeeProjection(fields);
+        for (EmployeeField field : EmployeeField.values()) {
+            projection.set(field, field.valueOf(employee));
+        }
+        return projection;
+    }
+
+    public Set<EmployeeField> getFields() {
+        return fields;
+    }
+
+    public Object get(EmployeeField field) {
+        return values[field.ordinal()];
+    }
+
+    public void set(EmployeeField field, Object value) {
+        values[field.ordinal()] = value;
+    }
+
+    public Long getId() {
+        return (Long) get(EmployeeField.ID);
+    }
+
+    public Long getVersion() {
+        return (Long) get(EmployeeField.VERSION);
+    }
+
+    static class Serializer extends StdSerializer<EmployeeProjection> {
+
+        Serializer() {
+            super(EmployeeProjection.class);
+        }
+
+        @Override
+        public void serialize(EmployeeProjection projection, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            for (EmployeeField field : projection.fields) {
+                Object value = projection.get(field);
+                if (value == null) {
+                    generator.writeNullField(field.getAttribute());
+                } else if (value instanceof Long) {
+                    generator.writeNumberField(field.getAttribute(), (Long) value);
+                } else {
+                    generator.writeStringField(field.getAttribute(), value.toString());
+                }
+            }
+            generator.writeEndObject();
+        }
+    }
+}
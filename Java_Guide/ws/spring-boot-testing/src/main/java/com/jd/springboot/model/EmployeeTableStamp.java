@@ -0,0 +1,86 @@
+package com.jd.springboot.model;
+
+import java.util.Collection;
+import java.util.function.ToLongFunction;
+
+/**
+ * Aggregates of the employees table that change with every committed insert, delete and
+ * versioned update, whoever made it. See EmployeeRepository#findTableStamp. The id sum tells apart
+ * a delete and an insert below the highest id, which leave the count and the highest id as they
+ * were; the pooled sequence hands out such ids whenever several instances insert.
+ *
+ * The same aggregates can be counted over rows already read, so a read answers with the stamp of
+ * what it returned without a second query, and only a conditional read runs the aggregate query.
+ */
+public interface EmployeeTableStamp {
+
+    //every id is summed modulo this prime, so the sum of the sharded ids can't overflow
+    long ID_SUM_MODULUS = 1_000_000_007L;
+
+    long getRowCount();
+
+    long getMaxId();
+
+    long getIdSum();
+
+    //every update adds one to the version of its row
+    long getVersionSum();
+
+    //"2-7-8-0" in base 36, the same for the query and for the rows it aggregates
+    default String toTag() {
+        return Long.toString(getRowCount(), 36) + "-" + Long.toString(getMaxId(), 36) + "-" + Long.toString(getIdSum(), 36)
+                + "-" + Long.toString(getVersionSum(), 36);
+    }
+
+    static EmployeeTableStamp of(long rowCount, long maxId, long idSum, long versionSum) {
+        return new EmployeeTableStamp() {
+            @Override
+            public long getRowCount() {
+                return rowCount;
+            }
+
+            @Override
+            public long getMaxId() {
+                return maxId;
+            }
+
+            @Override
+            public long getIdSum() {
+                return idSum;
+            }
+
+            @Override
+            public long getVersionSum() {
+                return versionSum;
+            }
+        };
+    }
+
+    static <T> EmployeeTableStamp of(Collection<T> rows, ToLongFunction<T> id, ToLongFunction<T> version) {
+        long maxId = 0;
+        long idSum = 0;
+        long versionSum = 0;
+        for (T row : rows) {
+            long rowId = id.applyAsLong(row);
+            maxId = Math.max(maxId, rowId);
+            idSum += rowId % ID_SUM_MODULUS;
+            versionSum += version.applyAsLong(row);
+        }
+        return of(rows.size(), maxId, idSum, versionSum);
+    }
+
+    //Stamps of disjoint parts of the table, such as shards, add up to the stamp of the whole
+    static EmployeeTableStamp sum(Collection<EmployeeTableStamp> parts) {
+        long rowCount = 0;
+        long maxId = 0;
+        long idSum = 0;
+        long versionSum = 0;
+        for (EmployeeTableStamp part : parts) {
+            rowCount += part.getRowCount();
+            maxId = Math.max(maxId, part.getMaxId());
+            idSum += part.getIdSum();
+            versionSum += part.getVersionSum();
+        }
+        return of(rowCount, maxId, idSum, versionSum);
+    }
+}
@@ -0,0 +1,18 @@
+package com.jd.springboot.repository;
+
+import com.jd.springboot.model.EmployeeField;
+import com.jd.springboot.model.EmployeeProjection;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads that select only the requested columns. Fragment of EmployeeRepository.
+ */
+public interface EmployeeProjectionRepository {
+
+    List<EmployeeProjection> findProjected(Set<EmployeeField> fields);
+
+    //Keyset page on id, the id is always selected so that it can be used as the next cursor
+    List<EmployeeProjection> findProjectedPageAfter(Set<EmployeeField> fields, long afterId, int limit);
+}
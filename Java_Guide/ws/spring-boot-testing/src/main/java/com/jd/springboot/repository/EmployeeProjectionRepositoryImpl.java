@@ -0,0 +1,78 @@
+package com.jd.springboot.repository;
+
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeField;
+import com.jd.springboot.model.EmployeeProjection;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tuple queries with one select item per requested field, Hibernate returns plain values and
+ * nothing is added to the persistence context. The id and the version are always read too, they
+ * are the paging cursor and the etag of the rows, but only written when selected.
+ */
+public class EmployeeProjectionRepositoryImpl implements EmployeeProjectionRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<EmployeeProjection> findProjected(Set<EmployeeField> fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Employee> employee = query.from(Employee.class);
+        Set<EmployeeField> selected = withIdAndVersion(fields);
+        select(query, employee, selected);
+        return toProjections(entityManager.createQuery(query).getResultList(), fields, selected);
+    }
+
+    @Override
+    public List<EmployeeProjection> findProjectedPageAfter(Set<EmployeeField> fields, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Employee> employee = query.from(Employee.class);
+        Set<EmployeeField> selected = withIdAndVersion(fields);
+        select(query, employee, selected);
+        query.where(cb.greaterThan(employee.get(EmployeeField.ID.getAttribute()), afterId))
+                .orderBy(cb.asc(employee.get(EmployeeField.ID.getAttribute())));
+        List<Tuple> rows = entityManager.createQuery(query).setMaxResults(limit).getResultList();
+        return toProjections(rows, fields, selected);
+    }
+
+    private static Set<EmployeeField> withIdAndVersion(Set<EmployeeField> fields) {
+        Set<EmployeeField> selected = EnumSet.copyOf(fields);
+        selected.add(EmployeeField.ID);
+        selected.add(EmployeeField.VERSION);
+        return selected;
+    }
+
+    private static void select(CriteriaQuery<Tuple> query, Root<Employee> employee, Set<EmployeeField> fields) {
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (EmployeeField field : fields) {
+            selections.add(employee.get(field.getAttribute()).alias(field.name()));
+        }
+        query.multiselect(selections);
+    }
+
+    private static List<EmployeeProjection> toProjections(List<Tuple> rows, Set<EmployeeField> fields, Set<EmployeeField> selected) {
+        List<EmployeeProjection> projections = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            EmployeeProjection projection = new EmployeeProjection(fields);
+            for (EmployeeField field : selected) {
+                projection.set(field, row.get(field.name()));
+            }
+            projections.add(projection);
+        }
+        return projections;
+    }
+}
@@ -1,34 +1,129 @@
 package com.jd.springboot.repository;
 
 import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeTableStamp;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 /**
  * Created by jd birla on 23-11-2022 at 09:49
  */
 
-public interface EmployeeRepository extends JpaRepository<Employee, Long> {
+public interface EmployeeRepository extends JpaRepository<Employee, Long>, EmployeeProjectionRepository {
 
     //JPQL query with index parameters
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = Employee.QUERY_CACHE_REGION)
+    })
     @Query("select e from Employee e where e.firstName =?1 and  e.lastName=?2")
     Employee findByFirstLastName(String firstName , String lastName);
 
     //JPQL query with named parameters
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = Employee.QUERY_CACHE_REGION)
+    })
     @Query("select e from Employee e where e.firstName =:firstName and  e.lastName=:lastName")
     Employee findByNamedParams(@Param("firstName") String firstName , @Param("lastName") String lastName);
 
     //Native sql query with index parameters
+    //the query space tells Hibernate which writes invalidate the cached result
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = Employee.QUERY_CACHE_REGION),
+            @QueryHint(name = HINT_NATIVE_SPACES, value = "employees")
+    })
     @Query(value = "select * from employees e where e.fisrt_name =?1 and  e.last_name=?2" , nativeQuery = true)
     Employee findByNativeSql(String firstName , String lastName);
 
     //Native sql query with named parameters
+    //the query space tells Hibernate which writes invalidate the cached result
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = Employee.QUERY_CACHE_REGION),
+            @QueryHint(name = HINT_NATIVE_SPACES, value = "employees")
+    })
     @Query(value = "select * from employees e where e.fisrt_name =:firstName and  e.last_name=:lastName" , nativeQuery = true)
     Employee findByNativeSqlNamedParams(@Param("firstName") String firstName , @Param("lastName") String lastName);
 
 
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = Employee.QUERY_CACHE_REGION)
+    })
     Optional<Employee> findByEmail(String email);
+
+    //Lets a conditional get compare versions without loading the employee
+    @Query("select e.version from Employee e where e.id = :id")
+    Optional<Long> findVersionById(@Param("id") long id);
+
+    //Etag of the collection reads, one aggregate query instead of reading the rows.
+    //The modulus is EmployeeTableStamp.ID_SUM_MODULUS
+    @Query("select count(e) as rowCount, coalesce(max(e.id), 0) as maxId, coalesce(sum(mod(e.id, 1000000007)), 0) as idSum,"
+            + " coalesce(sum(e.version), 0) as versionSum from Employee e")
+    EmployeeTableStamp findTableStamp();
+
+    //Single set query used to find the already registered emails of a whole batch
+    @Query("select e.email from Employee e where e.email in :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    //Partial update in a single statement, a null argument keeps the current value
+    //No row is updated when the version doesn't match, must run inside a transaction
+    @Modifying
+    @Query("update Employee e set e.firstName = coalesce(:firstName, e.firstName), e.lastName = coalesce(:lastName, e.lastName), "
+            + "e.email = coalesce(:email, e.email), e.version = e.version + 1 where e.id = :id and e.version = :version")
+    int patch(@Param("id") long id, @Param("version") long version, @Param("firstName") String firstName,
+              @Param("lastName") String lastName, @Param("email") String email);
+
+    //Set based bulk operations, a single statement whatever the number of rows, must run inside a transaction
+    @Modifying
+    @Query("delete from Employee e where e.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select e.id from Employee e where e.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    //'!' escapes like wildcards, a backslash would need different quoting on MySQL
+    @Query("select e.id from Employee e where e.email like :emailPattern escape '!'")
+    List<Long> findIdsByEmailLike(@Param("emailPattern") String emailPattern);
+
+    @Query("select e.id from Employee e where e.lastName = :lastName")
+    List<Long> findIdsByLastName(@Param("lastName") String lastName);
+
+    //the last name is checked again, an employee renamed since its id was selected is left alone
+    @Modifying
+    @Query("update Employee e set e.lastName = :newLastName, e.version = e.version + 1 where e.id in :ids and e.lastName = :lastName")
+    int updateLastName(@Param("ids") Collection<Long> ids, @Param("lastName") String lastName, @Param("newLastName") String newLastName);
+
+    //Keyset pagination, seeks on the primary key instead of using an offset
+    @Query("select e from Employee e where e.id > :afterId order by e.id")
+    List<Employee> findPageAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    //Forward-only stream over the whole table, must be consumed inside a transaction
+    //MySQL only honours the fetch size with useCursorFetch=true on the jdbc url
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("select e from Employee e order by e.id")
+    Stream<Employee> streamAllOrderById();
 }
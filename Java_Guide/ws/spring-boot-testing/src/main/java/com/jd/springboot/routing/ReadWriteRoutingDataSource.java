@@ -0,0 +1,79 @@
+package com.jd.springboot.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the connections of read-only transactions to the replicas, round robin, and everything
+ * else to the primary: writes, transactions that aren't read-only and work outside a transaction.
+ * It has to sit behind a LazyConnectionDataSourceProxy, the transaction manager asks for the
+ * connection before the transaction is marked read-only.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    static final String PRIMARY = "primary";
+
+    private final List<HikariDataSource> replicas;
+
+    private final Duration stickyWindow;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<HikariDataSource> replicas, Duration stickyWindow) {
+        this.replicas = replicas;
+        this.stickyWindow = stickyWindow;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(replicaKey(i), replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            //the pin starts with the commit, a rolled back write leaves nothing to read back
+            if (!stickyWindow.isZero() && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        ReadYourWrites.written(stickyWindow);
+                    }
+                });
+            }
+            return PRIMARY;
+        }
+        if (replicas.isEmpty() || ReadYourWrites.isPinned()) {
+            return PRIMARY;
+        }
+        return replicaKey(Math.floorMod(next.getAndIncrement(), replicas.size()));
+    }
+
+    public List<HikariDataSource> getReplicas() {
+        return replicas;
+    }
+
+    private static String replicaKey(int index) {
+        return "replica-" + index;
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
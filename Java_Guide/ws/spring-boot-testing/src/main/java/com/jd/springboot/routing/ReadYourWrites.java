@@ -0,0 +1,72 @@
+package com.jd.springboot.routing;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the reads of a caller on the primary for a while after its last write, so it doesn't
+ * read a replica that hasn't applied that write yet. Within a thread the pin is a thread local,
+ * across requests it travels in a cookie, see ReadYourWritesInterceptor. Reads whose result is
+ * kept for other callers run on the primary whatever the pin, see onPrimary.
+ */
+public final class ReadYourWrites {
+
+    public static final String COOKIE_NAME = "employee-primary-until";
+
+    //epoch millis until which reads stay on the primary
+    private static final ThreadLocal<Long> PINNED_UNTIL = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    //Called once a write committed, also hands the pin to the client when inside a request
+    public static void written(Duration window) {
+        long until = System.currentTimeMillis() + window.toMillis();
+        PINNED_UNTIL.set(until);
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            HttpServletResponse response = ((ServletRequestAttributes) attributes).getResponse();
+            if (response != null && !response.isCommitted()) {
+                Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(until));
+                cookie.setPath("/");
+                cookie.setHttpOnly(true);
+                cookie.setMaxAge((int) Math.max(1, window.getSeconds()));
+                response.addCookie(cookie);
+            }
+        }
+    }
+
+    public static void pinUntil(long epochMillis) {
+        PINNED_UNTIL.set(epochMillis);
+    }
+
+    public static boolean isPinned() {
+        Long until = PINNED_UNTIL.get();
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    //A replica may not have applied a write yet, what it returns mustn't end up in a shared cache
+    public static <T> T onPrimary(Supplier<T> read) {
+        Long pinnedUntil = PINNED_UNTIL.get();
+        PINNED_UNTIL.set(Long.MAX_VALUE);
+        try {
+            return read.get();
+        } finally {
+            if (pinnedUntil == null) {
+                PINNED_UNTIL.remove();
+            } else {
+                PINNED_UNTIL.set(pinnedUntil);
+            }
+        }
+    }
+
+    public static void clear() {
+        PINNED_UNTIL.remove();
+    }
+}
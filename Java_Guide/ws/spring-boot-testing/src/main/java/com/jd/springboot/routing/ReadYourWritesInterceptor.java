@@ -0,0 +1,45 @@
+package com.jd.springboot.routing;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+
+/**
+ * Restores the primary pin of a client from its cookie. The cookie only ever shortens to the
+ * configured window, a forged far future value can't keep a client off the replicas.
+ */
+public class ReadYourWritesInterceptor implements HandlerInterceptor {
+
+    private final Duration window;
+
+    public ReadYourWritesInterceptor(Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ReadYourWrites.clear();
+        if (request.getCookies() == null) {
+            return true;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (ReadYourWrites.COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    long until = Long.parseLong(cookie.getValue());
+                    ReadYourWrites.pinUntil(Math.min(until, System.currentTimeMillis() + window.toMillis()));
+                } catch (NumberFormatException ignored) {
+                    //not one of ours, reads go to the replicas
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReadYourWrites.clear();
+    }
+}
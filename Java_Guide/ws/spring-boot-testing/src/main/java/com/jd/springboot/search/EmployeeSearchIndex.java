@@ -0,0 +1,411 @@
+package com.jd.springboot.search;
+
+import com.jd.springboot.exception.SearchIndexLoading;
+import com.jd.springboot.model.Employee;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process index over first name, last name and email for type-ahead search. Terms are matched
+ * by prefix on a sorted token map and, from three characters on, by trigram similarity so a typo
+ * still finds the employee. It's kept up to date by the write paths of this instance only, writes
+ * made by another instance aren't seen until a restart.
+ *
+ * A load that runs while requests are served (see EmployeeSearchIndexLoader) marks the index as
+ * loading: search refuses until it's done, the ids written meanwhile are handed to the loader to
+ * read again, and the deleted ones are never brought back by a row the load read before.
+ */
+@Component
+public class EmployeeSearchIndex {
+
+    private static final double EXACT_SCORE = 2.0;
+    private static final double PREFIX_SCORE = 1.5;
+    //bounds the work of a one letter prefix or a common trigram on a large table
+    private static final int MAX_CANDIDATES_PER_TERM = 10000;
+
+    private final double minSimilarity;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final TreeMap<String, Posting> tokenIds = new TreeMap<>();
+    private final Map<String, Set<String>> trigramTokens = new HashMap<>();
+
+    //both null unless a load runs
+    private Set<Long> writtenWhileLoading;
+    private Set<Long> deletedWhileLoading;
+    private volatile boolean loading;
+
+    public EmployeeSearchIndex(@Value("${employee.search.min-similarity:0.3}") double minSimilarity) {
+        this.minSimilarity = minSimilarity;
+    }
+
+    //An older version than the indexed one is ignored, so a late write can't bring back stale names
+    public void put(Employee employee) {
+        lock.writeLock().lock();
+        try {
+            written(List.of(employee.getId()));
+            index(employee);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Starts a load or, after a failed one, starts it over. The writes seen so far stay recorded
+    public void startLoading() {
+        lock.writeLock().lock();
+        try {
+            clear();
+            if (!loading) {
+                writtenWhileLoading = new HashSet<>();
+                deletedWhileLoading = new HashSet<>();
+                loading = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //A row read by the loader, unless it was deleted since the load started
+    public void load(Employee employee) {
+        lock.writeLock().lock();
+        try {
+            if (!deletedWhileLoading.contains(employee.getId())) {
+                index(employee);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //The ids written since the last call, for the loader to read again
+    public Set<Long> takeWrittenWhileLoading() {
+        lock.writeLock().lock();
+        try {
+            Set<Long> written = writtenWhileLoading;
+            writtenWhileLoading = new HashSet<>();
+            return written;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Ends the load unless more ids were written since they were last taken
+    public boolean finishLoading() {
+        lock.writeLock().lock();
+        try {
+            if (!writtenWhileLoading.isEmpty()) {
+                return false;
+            }
+            writtenWhileLoading = null;
+            deletedWhileLoading = null;
+            loading = false;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    //Applies a partial update, null fields keep their indexed value
+    public void patch(Long id, long newVersion, String firstName, String lastName, String email) {
+        lock.writeLock().lock();
+        try {
+            written(List.of(id));
+            Entry current = entries.get(id);
+            if (current == null) {
+                return;
+            }
+            Employee.EmployeeBuilder patched = current.employee.toBuilder().version(newVersion);
+            if (firstName != null) {
+                patched.firstName(firstName);
+            }
+            if (lastName != null) {
+                patched.lastName(lastName);
+            }
+            if (email != null) {
+                patched.email(email);
+            }
+            index(patched.build());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        removeAll(List.of(id));
+    }
+
+    public void removeAll(Collection<Long> ids) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                deletedWhileLoading.addAll(ids);
+            }
+            for (Long id : ids) {
+                Entry entry = entries.remove(id);
+                if (entry != null) {
+                    unindex(entry);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Mirrors the set based rename of the ids, the new version is the one the update statement set
+    public void renameLastName(Collection<Long> ids, String lastName, String newLastName) {
+        lock.writeLock().lock();
+        try {
+            written(ids);
+            for (Long id : ids) {
+                Entry entry = entries.get(id);
+                if (entry != null && lastName.equalsIgnoreCase(entry.employee.getLastName())) {
+                    index(entry.employee.toBuilder().lastName(newLastName).version(entry.employee.getVersion() + 1).build());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //The indexed emails of the ids, empty when one of them isn't indexed
+    public Optional<List<String>> emailsOf(Collection<Long> ids) {
+        lock.readLock().lock();
+        try {
+            List<String> emails = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                Entry entry = entries.get(id);
+                if (entry == null) {
+                    return Optional.empty();
+                }
+                emails.add(entry.employee.getEmail());
+            }
+            return Optional.of(emails);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            tokenIds.clear();
+            trigramTokens.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Every term of the query has to match, employees come back best score first
+    public List<Employee> search(String query, int limit) {
+        if (loading) {
+            throw new SearchIndexLoading("The search index is still loading, retry later");
+        }
+        String[] terms = query.trim().toLowerCase(Locale.ROOT).split("\\s+");
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+            for (String term : terms) {
+                Map<Long, Double> termScores = scoreTerm(term);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((id, score) -> score + termScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()));
+            List<Employee> employees = new ArrayList<>(Math.min(limit, ranked.size()));
+            for (int i = 0; i < ranked.size() && i < limit; i++) {
+                employees.add(entries.get(ranked.get(i).getKey()).employee.toBuilder().build());
+            }
+            return employees;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Double> scoreTerm(String term) {
+        Map<Long, Double> scores = new HashMap<>();
+        for (Map.Entry<String, Posting> match : tokenIds.subMap(term, true, term + Character.MAX_VALUE, true).entrySet()) {
+            double score = match.getKey().equals(term) ? EXACT_SCORE : PREFIX_SCORE;
+            for (Long id : match.getValue().ids) {
+                scores.merge(id, score, Math::max);
+            }
+            if (scores.size() >= MAX_CANDIDATES_PER_TERM) {
+                return scores;
+            }
+        }
+        if (term.length() < 3) {
+            return scores;
+        }
+        //The similarity is at most shared / term trigrams, so a match shares at least minShared of them
+        //and has one of the size - minShared + 1 rarest. Only those admit candidates, the common ones
+        //are only counted for the candidates there are
+        List<String> termTrigrams = new ArrayList<>(trigramsOf(term));
+        termTrigrams.sort(Comparator.comparingInt(trigram -> trigramTokens.getOrDefault(trigram, Set.of()).size()));
+        int minShared = Math.max(1, (int) Math.ceil(minSimilarity * termTrigrams.size() - 1e-9));
+        Map<String, Integer> sharedTrigrams = new HashMap<>();
+        for (int i = 0; i < termTrigrams.size(); i++) {
+            Set<String> tokens = trigramTokens.getOrDefault(termTrigrams.get(i), Set.of());
+            if (i <= termTrigrams.size() - minShared && sharedTrigrams.size() < MAX_CANDIDATES_PER_TERM) {
+                for (String token : tokens) {
+                    if (sharedTrigrams.size() < MAX_CANDIDATES_PER_TERM || sharedTrigrams.containsKey(token)) {
+                        sharedTrigrams.merge(token, 1, Integer::sum);
+                    }
+                }
+            } else if (tokens.size() < sharedTrigrams.size()) {
+                for (String token : tokens) {
+                    sharedTrigrams.computeIfPresent(token, (key, shared) -> shared + 1);
+                }
+            } else {
+                sharedTrigrams.replaceAll((token, shared) -> tokens.contains(token) ? shared + 1 : shared);
+            }
+        }
+        for (Map.Entry<String, Integer> candidate : sharedTrigrams.entrySet()) {
+            int shared = candidate.getValue();
+            Posting posting = tokenIds.get(candidate.getKey());
+            double similarity = (double) shared / (termTrigrams.size() + posting.trigrams - shared);
+            if (similarity >= minSimilarity) {
+                for (Long id : posting.ids) {
+                    scores.merge(id, similarity, Math::max);
+                }
+                if (scores.size() >= MAX_CANDIDATES_PER_TERM) {
+                    return scores;
+                }
+            }
+        }
+        return scores;
+    }
+
+    private void written(Collection<Long> ids) {
+        if (loading) {
+            writtenWhileLoading.addAll(ids);
+        }
+    }
+
+    //callers hold the write lock
+    private void index(Employee employee) {
+        Employee copy = employee.toBuilder().build();
+        Entry current = entries.get(copy.getId());
+        if (current != null && current.employee.getVersion() > copy.getVersion()) {
+            return;
+        }
+        if (current != null) {
+            unindex(current);
+        }
+        Entry entry = new Entry(copy, tokensOf(copy));
+        entries.put(copy.getId(), entry);
+        for (String token : entry.tokens) {
+            tokenIds.computeIfAbsent(token, key -> {
+                Set<String> trigrams = trigramsOf(key);
+                for (String trigram : trigrams) {
+                    trigramTokens.computeIfAbsent(trigram, t -> new HashSet<>()).add(key);
+                }
+                return new Posting(trigrams.size());
+            }).ids.add(copy.getId());
+        }
+    }
+
+    private void unindex(Entry entry) {
+        for (String token : entry.tokens) {
+            Set<Long> ids = tokenIds.get(token).ids;
+            ids.remove(entry.employee.getId());
+            if (ids.isEmpty()) {
+                tokenIds.remove(token);
+                for (String trigram : trigramsOf(token)) {
+                    Set<String> tokens = trigramTokens.get(trigram);
+                    tokens.remove(token);
+                    if (tokens.isEmpty()) {
+                        trigramTokens.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+
+    //names as they are, the whole email and each part of it so "birla" finds jitendra.birla@gmail.com
+    private static Set<String> tokensOf(Employee employee) {
+        Set<String> tokens = new LinkedHashSet<>();
+        addToken(tokens, employee.getFirstName());
+        addToken(tokens, employee.getLastName());
+        if (employee.getEmail() != null) {
+            String email = employee.getEmail().toLowerCase(Locale.ROOT);
+            addToken(tokens, email);
+            for (String part : email.split("[^\\p{L}\\p{N}]+")) {
+                addToken(tokens, part);
+            }
+        }
+        return tokens;
+    }
+
+    private static void addToken(Set<String> tokens, String value) {
+        if (value != null && !value.isBlank()) {
+            tokens.add(value.trim().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    //padded like pg_trgm so the start of a word weighs more than its middle
+    static Set<String> trigramsOf(String token) {
+        String padded = "  " + token + " ";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    //the employees of a token, and its trigram count for the similarity
+    private static class Posting {
+
+        private final Set<Long> ids = new HashSet<>();
+        private final int trigrams;
+
+        Posting(int trigrams) {
+            this.trigrams = trigrams;
+        }
+    }
+
+    private static class Entry {
+
+        private final Employee employee;
+        private final Set<String> tokens;
+
+        Entry(Employee employee, Set<String> tokens) {
+            this.employee = employee;
+            this.tokens = tokens;
+        }
+    }
+}
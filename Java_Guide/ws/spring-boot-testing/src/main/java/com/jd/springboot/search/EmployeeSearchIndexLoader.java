@@ -0,0 +1,97 @@
+package com.jd.springboot.search;
+
+import com.jd.springboot.services.EmployeeService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Set;
+
+/**
+ * Fills the search index from one streaming pass over the table. By default it runs once all
+ * singletons are created, which is before the web server takes requests, so no write can race the
+ * load. With employee.search.load-async=true it runs on a thread of its own once the application
+ * is ready instead: search answers 503 until then, and the employees written during the load are
+ * read again at its end, see EmployeeSearchIndex.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "employee.search.load-on-startup", havingValue = "true", matchIfMissing = true)
+public class EmployeeSearchIndexLoader implements SmartInitializingSingleton, ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+
+    private final EmployeeService employeeService;
+
+    private final EmployeeSearchIndex employeeSearchIndex;
+
+    private final boolean async;
+
+    public EmployeeSearchIndexLoader(EmployeeService employeeService, EmployeeSearchIndex employeeSearchIndex,
+                                     @Value("${employee.search.load-async:false}") boolean async) {
+        this.employeeService = employeeService;
+        this.employeeSearchIndex = employeeSearchIndex;
+        this.async = async;
+    }
+
+    //Either way the index is marked before the first request can search it
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (async) {
+            employeeSearchIndex.startLoading();
+            return;
+        }
+        long start = System.nanoTime();
+        employeeSearchIndex.clear();
+        employeeService.streamAll(employeeSearchIndex::put);
+        log.info("Search index loaded with {} employees in {} ms", employeeSearchIndex.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!async) {
+            return;
+        }
+        Thread loader = new Thread(this::loadWhileServing, "employee-search-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    //A failed load starts over after a while, search stays unavailable rather than incomplete
+    void loadWhileServing() {
+        while (true) {
+            long start = System.nanoTime();
+            try {
+                employeeSearchIndex.startLoading();
+                employeeService.streamAll(employeeSearchIndex::load);
+                while (!employeeSearchIndex.finishLoading()) {
+                    reload(employeeSearchIndex.takeWrittenWhileLoading());
+                }
+                log.info("Search index loaded in the background with {} employees in {} ms", employeeSearchIndex.size(),
+                        (System.nanoTime() - start) / 1_000_000);
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Search index load failed, retrying in {} s", RETRY_DELAY.getSeconds(), e);
+            }
+            try {
+                Thread.sleep(RETRY_DELAY.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    //Ids that are gone were deleted, their removal already keeps them out of the index
+    private void reload(Set<Long> ids) {
+        if (!ids.isEmpty()) {
+            employeeService.getEmployeesByIds(new ArrayList<>(ids)).getEmployees().forEach(employeeSearchIndex::load);
+        }
+    }
+}
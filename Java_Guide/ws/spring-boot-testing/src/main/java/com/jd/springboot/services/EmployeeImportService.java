@@ -0,0 +1,16 @@
+package com.jd.springboot.services;
+
+import com.jd.springboot.model.EmployeeImportReport;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface EmployeeImportService {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    public EmployeeImportReport importEmployees(InputStream input, Format format) throws IOException;
+
+}
@@ -1,9 +1,22 @@
 package com.jd.springboot.services;
 
+import com.jd.springboot.cache.EmployeeCacheStats;
 import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeBulkResult;
+import com.jd.springboot.model.EmployeeChanges;
+import com.jd.springboot.model.EmployeeField;
+import com.jd.springboot.model.EmployeeMultiGetResult;
+import com.jd.springboot.model.EmployeePatch;
+import com.jd.springboot.model.EmployeeProjection;
+import com.jd.springboot.model.EmployeeTableStamp;
 
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Created by jd birla on 24-11-2022 at 07:51
@@ -11,12 +24,56 @@ import java.util.Optional;
 public interface EmployeeService {
     public Employee saveEmployee(Employee employee);
 
+    public List<EmployeeBulkResult> saveAll(List<Employee> employees);
+
     public List<Employee> findAll();
 
+    public List<Employee> findPage(long afterId, int limit);
+
+    public List<EmployeeProjection> findAll(Set<EmployeeField> fields);
+
+    public List<EmployeeProjection> findPage(Set<EmployeeField> fields, long afterId, int limit);
+
+    public void streamAll(Consumer<Employee> consumer);
+
     public Employee updateEmployee(Employee updatedEmployee);
 
+    //returns the new version of the employee
+    public long patchEmployee(Long id, long expectedVersion, EmployeePatch patch);
+
     public void deleteEmployee(Long id);
 
+    public int deleteEmployees(Collection<Long> ids);
+
+    public int deleteEmployeesByEmailDomain(String domain);
+
+    public int renameLastName(String lastName, String newLastName);
+
     public Optional<Employee> getEmployeeById(Long id);
 
+    public Optional<EmployeeProjection> getEmployeeById(Long id, Set<EmployeeField> fields);
+
+    public Optional<Employee> getEmployeeByEmail(String email);
+
+    //in the requested order, ids without employee reported as missing
+    public EmployeeMultiGetResult getEmployeesByIds(List<Long> ids);
+
+    public Optional<Long> getEmployeeVersion(Long id);
+
+    //aggregates of the whole table, read from the database so writes made elsewhere change it too
+    public EmployeeTableStamp getCollectionStamp();
+
+    //change feed token, moves with every write committed through this instance
+    public String getChangeStamp();
+
+    //committed writes after the token, at most limit of them
+    public EmployeeChanges getChanges(String since, int limit);
+
+    //same, but waits up to wait for a write when there is none yet
+    public CompletableFuture<EmployeeChanges> awaitChanges(String since, int limit, Duration wait);
+
+    public List<Employee> searchEmployees(String query, int limit);
+
+    public EmployeeCacheStats getCacheStats();
+
 }
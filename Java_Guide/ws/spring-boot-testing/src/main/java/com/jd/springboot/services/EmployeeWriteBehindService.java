@@ -0,0 +1,20 @@
+package com.jd.springboot.services;
+
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeCreateAck;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+public interface EmployeeWriteBehindService {
+
+    //queues the create and returns a PENDING acknowledgement, throws WriteBehindQueueFull when there's no room
+    public EmployeeCreateAck submit(Employee employee);
+
+    //current state of the acknowledgement, throws ResurceNotFound for an unknown or expired ticket
+    public EmployeeCreateAck getAck(long ticket);
+
+    //completes once the create is flushed or after the wait with the acknowledgement as it is then
+    public CompletableFuture<EmployeeCreateAck> awaitAck(long ticket, Duration wait);
+
+}
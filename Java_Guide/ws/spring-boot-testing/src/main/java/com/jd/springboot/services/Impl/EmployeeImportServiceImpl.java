@@ -0,0 +1,193 @@
+package com.jd.springboot.services.Impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jd.springboot.exception.EmployeeAlreadyExists;
+import com.jd.springboot.exception.ImportCapacityExceeded;
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeBulkResult;
+import com.jd.springboot.model.EmployeeImportReport;
+import com.jd.springboot.services.EmployeeImportService;
+import com.jd.springboot.services.EmployeeService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Reads the upload line by line and commits it in chunks, each chunk in its own transaction
+ * through {@link EmployeeService#saveAll}. The next line is only read once the previous chunk
+ * is committed, so a slow database slows the reading of the request body down (and the client
+ * through tcp flow control) instead of piling rows up in memory. At most
+ * employee.import.max-concurrent imports run at once, which bounds the connections they hold.
+ */
+@Slf4j
+@Service
+public class EmployeeImportServiceImpl implements EmployeeImportService {
+
+    private static final String[] CSV_COLUMNS = {"firstName", "lastName", "email"};
+
+    private EmployeeService employeeService;
+
+    private ObjectMapper objectMapper;
+
+    private int chunkSize;
+
+    private int maxReportedRejections;
+
+    private Semaphore runningImports;
+
+    public EmployeeImportServiceImpl(EmployeeService employeeService, ObjectMapper objectMapper,
+                                     @Value("${employee.import.chunk-size:1000}") int chunkSize,
+                                     @Value("${employee.import.max-concurrent:2}") int maxConcurrent,
+                                     @Value("${employee.import.max-reported-rejections:1000}") int maxReportedRejections) {
+        this.employeeService = employeeService;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.maxReportedRejections = maxReportedRejections;
+        this.runningImports = new Semaphore(maxConcurrent);
+    }
+
+    @Override
+    public EmployeeImportReport importEmployees(InputStream input, Format format) throws IOException {
+        if (!runningImports.tryAcquire()) {
+            throw new ImportCapacityExceeded("Too many imports are running, retry later");
+        }
+        try {
+            return doImport(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), format);
+        } finally {
+            runningImports.release();
+        }
+    }
+
+    private EmployeeImportReport doImport(BufferedReader reader, Format format) throws IOException {
+        EmployeeImportReport report = new EmployeeImportReport();
+        List<Employee> chunk = new ArrayList<>(chunkSize);
+        List<Long> chunkLines = new ArrayList<>(chunkSize);
+        int[] csvColumns = null;
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == Format.CSV && csvColumns == null) {
+                csvColumns = parseCsvHeader(line);
+                continue;
+            }
+            report.setProcessed(report.getProcessed() + 1);
+            try {
+                chunk.add(format == Format.CSV ? parseCsvLine(line, csvColumns) : parseNdjsonLine(line));
+                chunkLines.add(lineNumber);
+            } catch (JsonProcessingException e) {
+                reject(report, lineNumber, null, "Unparseable row: " + e.getOriginalMessage());
+            } catch (IllegalArgumentException e) {
+                reject(report, lineNumber, null, "Unparseable row: " + e.getMessage());
+            }
+            if (chunk.size() == chunkSize) {
+                commitChunk(report, chunk, chunkLines);
+            }
+        }
+        commitChunk(report, chunk, chunkLines);
+        return report;
+    }
+
+    private void commitChunk(EmployeeImportReport report, List<Employee> chunk, List<Long> chunkLines) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        saveChunk(report, chunk, chunkLines);
+        report.setChunksCommitted(report.getChunksCommitted() + 1);
+        log.info("Employee import progress: chunk {} committed, {} processed, {} imported, {} rejected",
+                report.getChunksCommitted(), report.getProcessed(), report.getImported(), report.getRejected());
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    private void saveChunk(EmployeeImportReport report, List<Employee> chunk, List<Long> chunkLines) {
+        List<EmployeeBulkResult> results;
+        try {
+            results = employeeService.saveAll(chunk);
+        } catch (EmployeeAlreadyExists e) {
+            if (chunk.size() > 1) {
+                //the chunk was rolled back as a whole, retry its rows one by one so only the duplicate is rejected
+                for (int i = 0; i < chunk.size(); i++) {
+                    saveChunk(report, List.of(chunk.get(i)), List.of(chunkLines.get(i)));
+                }
+            } else {
+                reject(report, chunkLines.get(0), chunk.get(0).getEmail(), e.getMessage());
+            }
+            return;
+        }
+        for (EmployeeBulkResult result : results) {
+            if (result.getStatus() == EmployeeBulkResult.Status.CREATED) {
+                report.setImported(report.getImported() + 1);
+            } else {
+                reject(report, chunkLines.get(result.getIndex()), result.getEmail(), result.getMessage());
+            }
+        }
+    }
+
+    private void reject(EmployeeImportReport report, long line, String email, String reason) {
+        report.setRejected(report.getRejected() + 1);
+        if (report.getRejectedRows().size() < maxReportedRejections) {
+            report.getRejectedRows().add(new EmployeeImportReport.RejectedRow(line, email, reason));
+        }
+    }
+
+    //Jackson reads a bare null line as a null employee, arrays and scalars already fail to bind
+    private Employee parseNdjsonLine(String line) throws JsonProcessingException {
+        Employee employee = objectMapper.readValue(line, Employee.class);
+        if (employee == null) {
+            throw new IllegalArgumentException("a line must be a json object, got " + line.trim());
+        }
+        return employee;
+    }
+
+    //maps every expected column to its position in the header
+    private static int[] parseCsvHeader(String header) {
+        String[] names = header.split(",", -1);
+        int[] columns = new int[CSV_COLUMNS.length];
+        for (int c = 0; c < CSV_COLUMNS.length; c++) {
+            columns[c] = -1;
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].trim().equalsIgnoreCase(CSV_COLUMNS[c])) {
+                    columns[c] = i;
+                }
+            }
+            if (columns[c] < 0) {
+                throw new IllegalArgumentException("CSV header must contain the columns firstName,lastName,email");
+            }
+        }
+        return columns;
+    }
+
+    //plain comma separated values, quoted fields are not supported
+    private static Employee parseCsvLine(String line, int[] columns) {
+        String[] values = line.split(",", -1);
+        for (int column : columns) {
+            if (column >= values.length) {
+                throw new IllegalArgumentException("Expected at least " + (column + 1) + " values");
+            }
+        }
+        return Employee.builder()
+                .firstName(emptyToNull(values[columns[0]]))
+                .lastName(emptyToNull(values[columns[1]]))
+                .email(emptyToNull(values[columns[2]]))
+                .build();
+    }
+
+    private static String emptyToNull(String value) {
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
@@ -1,14 +1,51 @@
 package com.jd.springboot.services.Impl;
 
+import com.jd.springboot.cache.EmployeeCache;
+import com.jd.springboot.cache.EmployeeCacheStats;
+import com.jd.springboot.cache.EmployeeLookups;
+import com.jd.springboot.changes.EmployeeChangeLog;
+import com.jd.springboot.exception.EmployeeAlreadyExists;
 import com.jd.springboot.exception.ResurceNotFound;
 import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeBulkResult;
+import com.jd.springboot.model.EmployeeChanges;
+import com.jd.springboot.model.EmployeeField;
+import com.jd.springboot.model.EmployeeMultiGetResult;
+import com.jd.springboot.model.EmployeePatch;
+import com.jd.springboot.model.EmployeeProjection;
+import com.jd.springboot.model.EmployeeTableStamp;
 import com.jd.springboot.repository.EmployeeRepository;
+import com.jd.springboot.routing.ReadYourWrites;
+import com.jd.springboot.search.EmployeeSearchIndex;
 import com.jd.springboot.services.EmployeeService;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Created by jd birla on 24-11-2022 at 07:58
@@ -19,39 +56,420 @@ public class EmployeeServiceImpl implements EmployeeService {
     @Autowired
     private EmployeeRepository employeeRepository;
 
-    public EmployeeServiceImpl(EmployeeRepository employeeRepository) {
+    private EntityManager entityManager;
+
+    private EmployeeCache employeeCache;
+
+    private EmployeeSearchIndex employeeSearchIndex;
+
+    private EmployeeChangeLog employeeChangeLog;
+
+    private EmployeeLookups employeeLookups;
+
+    //ids per IN list, not a jdbc batch size, see chunksOf
+    static final int ID_CHUNK_SIZE = 1000;
+
+    //keep in line with hibernate.jdbc.batch_size so that every chunk is sent as full jdbc batches
+    @Value("${employee.bulk.chunk-size:50}")
+    private int bulkChunkSize = 50;
+
+    public EmployeeServiceImpl(EmployeeRepository employeeRepository, EntityManager entityManager, EmployeeCache employeeCache,
+                               EmployeeSearchIndex employeeSearchIndex, EmployeeChangeLog employeeChangeLog,
+                               EmployeeLookups employeeLookups) {
         this.employeeRepository = employeeRepository;
+        this.entityManager = entityManager;
+        this.employeeCache = employeeCache;
+        this.employeeSearchIndex = employeeSearchIndex;
+        this.employeeChangeLog = employeeChangeLog;
+        this.employeeLookups = employeeLookups;
     }
 
+    //The unique index on email does the duplicate check, so a create is a single insert
     @Override
     public Employee saveEmployee(Employee employee) {
-        Optional<Employee> savedEmp = employeeRepository.findByEmail(employee.getEmail());
-        if(savedEmp.isPresent())
-        {
-            throw new ResurceNotFound("Employee already present with this email id:"+employee.getEmail());
+        try {
+            Employee savedEmployee = employeeRepository.saveAndFlush(employee);
+            //drop a cached "not found" for the new id
+            employeeCache.invalidate(savedEmployee.getId());
+            afterCommit(() -> {
+                forgetLookups(List.of(), savedEmployee.getEmail());
+                employeeSearchIndex.put(savedEmployee);
+                employeeChangeLog.created(savedEmployee);
+            });
+            return savedEmployee;
+        } catch (DataIntegrityViolationException e) {
+            if (isEmailConstraintViolation(e)) {
+                throw new EmployeeAlreadyExists("Employee already present with this email id:" + employee.getEmail());
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    @Transactional
+    public List<EmployeeBulkResult> saveAll(List<Employee> employees) {
+        Set<String> emails = new HashSet<>();
+        for (Employee employee : employees) {
+            if (employee.getEmail() != null) {
+                emails.add(employee.getEmail());
+            }
+        }
+        Set<String> takenEmails = emails.isEmpty() ? new HashSet<>() : new HashSet<>(employeeRepository.findExistingEmails(emails));
+
+        List<EmployeeBulkResult> results = new ArrayList<>(employees.size());
+        List<Employee> chunk = new ArrayList<>(bulkChunkSize);
+        List<EmployeeBulkResult> chunkResults = new ArrayList<>(bulkChunkSize);
+        for (int i = 0; i < employees.size(); i++) {
+            Employee employee = employees.get(i);
+            EmployeeBulkResult result = EmployeeBulkResult.builder().index(i).email(employee.getEmail()).build();
+            results.add(result);
+            if (employee.getEmail() == null || employee.getFirstName() == null || employee.getLastName() == null) {
+                result.setStatus(EmployeeBulkResult.Status.INVALID);
+                result.setMessage("firstName, lastName and email are mandatory");
+            } else if (!takenEmails.add(employee.getEmail())) {
+                result.setStatus(EmployeeBulkResult.Status.DUPLICATE);
+                result.setMessage("Employee already present with this email id:" + employee.getEmail());
+            } else {
+                employee.setId(0L);
+                chunk.add(employee);
+                chunkResults.add(result);
+                if (chunk.size() == bulkChunkSize) {
+                    insertChunk(chunk, chunkResults);
+                }
+            }
+        }
+        insertChunk(chunk, chunkResults);
+        for (EmployeeBulkResult result : results) {
+            if (result.getId() != null) {
+                employeeCache.invalidate(result.getId());
+            }
+        }
+        return results;
+    }
+
+    private void insertChunk(List<Employee> chunk, List<EmployeeBulkResult> chunkResults) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Employee> saved = employeeRepository.saveAll(chunk);
+        //flush the chunk as jdbc batches and drop it from the persistence context
+        try {
+            entityManager.flush();
+        } catch (PersistenceException e) {
+            //a concurrent create took one of the emails after the duplicate check
+            if (isEmailConstraintViolation(e)) {
+                throw new EmployeeAlreadyExists("An email of the batch was registered concurrently, nothing was saved");
+            }
+            throw e;
+        }
+        entityManager.clear();
+        for (int i = 0; i < saved.size(); i++) {
+            EmployeeBulkResult result = chunkResults.get(i);
+            result.setId(saved.get(i).getId());
+            result.setStatus(EmployeeBulkResult.Status.CREATED);
+        }
+        afterCommit(() -> {
+            employeeLookups.forgetInFlight(saved.stream().map(Employee::getEmail).collect(Collectors.toList()));
+            saved.forEach(employee -> {
+                employeeSearchIndex.put(employee);
+                employeeChangeLog.created(employee);
+            });
+        });
+        chunk.clear();
+        chunkResults.clear();
+    }
+
+    //The search index and the change log must not reflect a rolled back transaction
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    //Lookups by email already running may have read the employees before the commit, new callers
+    //mustn't share them. The old emails of the ids come from the search index, so this runs before
+    //the index is changed, if one of the ids isn't indexed every lookup in flight is forgotten
+    private void forgetLookups(Collection<Long> ids, String... newEmails) {
+        Optional<List<String>> oldEmails = employeeSearchIndex.emailsOf(ids);
+        if (oldEmails.isEmpty()) {
+            employeeLookups.forgetAllInFlight();
+            return;
         }
-        return employeeRepository.save(employee);
+        employeeLookups.forgetInFlight(oldEmails.get());
+        employeeLookups.forgetInFlight(Arrays.asList(newEmails));
+    }
 
+    private static boolean isEmailConstraintViolation(RuntimeException e) {
+        if (!(e.getCause() instanceof ConstraintViolationException)) {
+            return false;
+        }
+        String constraintName = ((ConstraintViolationException) e.getCause()).getConstraintName();
+        return constraintName != null && constraintName.toLowerCase().contains(Employee.EMAIL_UNIQUE_CONSTRAINT);
     }
 
+    //Read-only transactions are what the datasource routing sends to a replica
     @Override
+    @Transactional(readOnly = true)
     public List<Employee> findAll() {
         return employeeRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Employee> findPage(long afterId, int limit) {
+        return employeeRepository.findPageAfter(afterId, PageRequest.of(0, limit));
+    }
+
+    //Only the selected columns are read, no entity is created
+    @Override
+    @Transactional(readOnly = true)
+    public List<EmployeeProjection> findAll(Set<EmployeeField> fields) {
+        return employeeRepository.findProjected(fields);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<EmployeeProjection> findPage(Set<EmployeeField> fields, long afterId, int limit) {
+        return employeeRepository.findProjectedPageAfter(fields, afterId, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Employee> consumer) {
+        try (Stream<Employee> employees = employeeRepository.streamAllOrderById()) {
+            employees.forEach(employee -> {
+                consumer.accept(employee);
+                //keep the persistence context flat however many rows go through it
+                entityManager.detach(employee);
+            });
+        }
+    }
+
+    //A version conflict means the cached copy, if any, is outdated as well
     @Override
     public Employee updateEmployee(Employee updatedEmployee) {
-        return employeeRepository.save(updatedEmployee);
+        Employee employee;
+        try {
+            employee = employeeRepository.save(updatedEmployee);
+        } catch (OptimisticLockingFailureException e) {
+            employeeCache.invalidate(updatedEmployee.getId());
+            throw e;
+        }
+        employeeCache.invalidate(employee.getId());
+        afterCommit(() -> {
+            forgetLookups(List.of(employee.getId()), employee.getEmail());
+            employeeSearchIndex.put(employee);
+            employeeChangeLog.updated(employee);
+        });
+        return employee;
+    }
+
+    //Single UPDATE ... WHERE id=? AND version=?, the row is only read again when nothing was updated
+    @Override
+    @Transactional
+    public long patchEmployee(Long id, long expectedVersion, EmployeePatch patch) {
+        int updated;
+        try {
+            updated = employeeRepository.patch(id, expectedVersion, patch.getFirstName(), patch.getLastName(), patch.getEmail());
+        } catch (DataIntegrityViolationException e) {
+            if (isEmailConstraintViolation(e)) {
+                throw new EmployeeAlreadyExists("Employee already present with this email id:" + patch.getEmail());
+            }
+            throw e;
+        }
+        if (updated == 0) {
+            if (!employeeRepository.existsById(id)) {
+                throw new ResurceNotFound("Employee not found with id:" + id);
+            }
+            throw new OptimisticLockingFailureException("Employee " + id + " was modified concurrently, expected version " + expectedVersion);
+        }
+        afterCommit(() -> {
+            //only once committed, a reader before that would cache the old row again
+            employeeCache.invalidate(id);
+            forgetLookups(List.of(id), patch.getEmail());
+            employeeSearchIndex.patch(id, expectedVersion + 1, patch.getFirstName(), patch.getLastName(), patch.getEmail());
+            employeeChangeLog.updated(id);
+        });
+        return expectedVersion + 1;
     }
 
+    //One DELETE statement, deleteById would select the employee first.
+    //An id that matched no row isn't logged, it would only push real changes out of the log
     @Override
+    @Transactional
     public void deleteEmployee(Long id) {
-        employeeRepository.deleteById(id);
+        int deleted = employeeRepository.deleteByIds(List.of(id));
+        afterCommit(() -> {
+            employeeCache.invalidate(id);
+            if (deleted > 0) {
+                forgetLookups(List.of(id));
+                employeeChangeLog.deleted(id);
+            }
+            employeeSearchIndex.remove(id);
+        });
     }
 
+    //The existing ids are selected first, as for the email domain below, so that made-up ids
+    //neither reach the delete nor flood the change log and expire the tokens of its readers
+    @Override
+    @Transactional
+    public int deleteEmployees(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int deleted = 0;
+        List<Long> existingIds = new ArrayList<>();
+        for (List<Long> chunk : chunksOf(new ArrayList<>(new LinkedHashSet<>(ids)))) {
+            List<Long> existing = employeeRepository.findExistingIds(chunk);
+            if (!existing.isEmpty()) {
+                deleted += employeeRepository.deleteByIds(existing);
+                existingIds.addAll(existing);
+            }
+        }
+        afterCommit(() -> {
+            employeeCache.invalidateAll(ids);
+            forgetLookups(existingIds);
+            employeeSearchIndex.removeAll(existingIds);
+            existingIds.forEach(employeeChangeLog::deleted);
+        });
+        return deleted;
+    }
+
+    //The matching ids are selected first so the change log can name them, the delete is then
+    //restricted to those ids, an employee committed in between is left alone rather than missed
+    @Override
+    @Transactional
+    public int deleteEmployeesByEmailDomain(String domain) {
+        String escapedDomain = domain.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+        List<Long> ids = employeeRepository.findIdsByEmailLike("%@" + escapedDomain);
+        int deleted = 0;
+        for (List<Long> chunk : chunksOf(ids)) {
+            deleted += employeeRepository.deleteByIds(chunk);
+        }
+        afterCommit(() -> {
+            employeeCache.invalidateAll(ids);
+            forgetLookups(ids);
+            employeeSearchIndex.removeAll(ids);
+            ids.forEach(employeeChangeLog::deleted);
+        });
+        return deleted;
+    }
+
+    @Override
+    @Transactional
+    public int renameLastName(String lastName, String newLastName) {
+        List<Long> ids = employeeRepository.findIdsByLastName(lastName);
+        int updated = 0;
+        for (List<Long> chunk : chunksOf(ids)) {
+            updated += employeeRepository.updateLastName(chunk, lastName, newLastName);
+        }
+        afterCommit(() -> {
+            employeeCache.invalidateAll(ids);
+            forgetLookups(ids);
+            employeeSearchIndex.renameLastName(ids, lastName, newLastName);
+            ids.forEach(employeeChangeLog::updated);
+        });
+        return updated;
+    }
+
+    //keeps the in lists of the set based statements at a size every database takes
+    private static List<List<Long>> chunksOf(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(ids.size(), from + ID_CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+
+    //The cache runs one load per id, concurrent misses of the same id wait for it and count as hits.
+    //Misses are read from the primary, see ReadYourWrites#onPrimary
     @Override
     public Optional<Employee> getEmployeeById(Long id) {
+        return employeeCache.get(id, key -> ReadYourWrites.onPrimary(() -> employeeRepository.findById(key)));
+    }
+
+    @Override
+    public Optional<Employee> getEmployeeByEmail(String email) {
+        return employeeLookups.byEmail(email, () -> employeeRepository.findByEmail(email));
+    }
+
+    //Cache first, the misses are read with one in query per chunk of ids
+    @Override
+    public EmployeeMultiGetResult getEmployeesByIds(List<Long> ids) {
+        Map<Long, Optional<Employee>> found = employeeCache.getAll(new LinkedHashSet<>(ids), missing -> {
+            Map<Long, Optional<Employee>> loaded = new HashMap<>();
+            missing.forEach(id -> loaded.put(id, Optional.empty()));
+            for (List<Long> chunk : chunksOf(new ArrayList<>(missing))) {
+                ReadYourWrites.onPrimary(() -> employeeRepository.findAllById(chunk))
+                        .forEach(employee -> loaded.put(employee.getId(), Optional.of(employee)));
+            }
+            return loaded;
+        });
+        Map<Long, Employee> employees = new HashMap<>();
+        found.forEach((id, employee) -> employee.ifPresent(present -> employees.put(id, present)));
+        return EmployeeMultiGetResult.of(ids, employees);
+    }
 
-        return employeeRepository.findById(id);
+    //Projected from the cached employee, a single row isn't worth a second query shape
+    @Override
+    public Optional<EmployeeProjection> getEmployeeById(Long id, Set<EmployeeField> fields) {
+        return getEmployeeById(id).map(employee -> EmployeeProjection.of(employee, fields));
+    }
+
+    //Only the version column is read
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> getEmployeeVersion(Long id) {
+        return employeeRepository.findVersionById(id);
+    }
+
+    //Not the change log, which only sees the writes of this instance. Any insert, delete or update
+    //that bumps the version changes the row count, the highest id, the id sum or the sum of the versions
+    @Override
+    @Transactional(readOnly = true)
+    public EmployeeTableStamp getCollectionStamp() {
+        return employeeRepository.findTableStamp();
+    }
+
+    @Override
+    public String getChangeStamp() {
+        return employeeChangeLog.currentToken();
+    }
+
+    //Without a token the feed starts now
+    @Override
+    public EmployeeChanges getChanges(String since, int limit) {
+        return employeeChangeLog.since(since == null ? employeeChangeLog.currentToken() : since, limit);
+    }
+
+    //The waiter is registered before looking, a write committed in between still wakes it up.
+    //The log is read again off the committing thread so long polls don't add to write latency
+    @Override
+    public CompletableFuture<EmployeeChanges> awaitChanges(String since, int limit, Duration wait) {
+        String token = since == null ? employeeChangeLog.currentToken() : since;
+        CompletableFuture<Void> change = employeeChangeLog.awaitChange(wait);
+        EmployeeChanges changes = employeeChangeLog.since(token, limit);
+        if (!changes.getChanges().isEmpty()) {
+            change.complete(null);
+            return CompletableFuture.completedFuture(changes);
+        }
+        return change.thenApplyAsync(changed -> employeeChangeLog.since(token, limit));
+    }
+
+    @Override
+    public List<Employee> searchEmployees(String query, int limit) {
+        return employeeSearchIndex.search(query, limit);
+    }
+
+    @Override
+    public EmployeeCacheStats getCacheStats() {
+        return employeeCache.stats();
     }
 }
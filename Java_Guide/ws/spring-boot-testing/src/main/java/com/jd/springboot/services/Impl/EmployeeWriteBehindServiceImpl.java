@@ -0,0 +1,253 @@
+package com.jd.springboot.services.Impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jd.springboot.exception.ResurceNotFound;
+import com.jd.springboot.exception.WriteBehindQueueFull;
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeBulkResult;
+import com.jd.springboot.model.EmployeeCreateAck;
+import com.jd.springboot.services.EmployeeService;
+import com.jd.springboot.services.EmployeeWriteBehindService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Opt-in (employee.write-behind.enabled=true) group commit of creates. Accepted creates wait in a
+ * bounded in-memory queue and one flusher thread inserts them through {@link EmployeeService#saveAll},
+ * one transaction per group, as soon as max-batch-size creates are queued or max-delay after the
+ * first one. A full queue rejects right away instead of blocking the caller. At most max-acks
+ * acknowledgements are kept, the oldest go first when there are more.
+ *
+ * Durability: an accepted create lives in memory only until its group commits, a crash or a kill
+ * loses it. A graceful shutdown stops accepting and flushes what is queued. Callers that need
+ * durability wait for the CREATED acknowledgement.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "employee.write-behind.enabled", havingValue = "true")
+public class EmployeeWriteBehindServiceImpl implements EmployeeWriteBehindService, SmartLifecycle {
+
+    private static final long STOP_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final EmployeeService employeeService;
+
+    private final BlockingQueue<PendingCreate> queue;
+
+    private final int maxBatchSize;
+
+    private final long maxDelayNanos;
+
+    //acknowledgements stay pollable for ack-retention after they were flushed, see complete. A flushed
+    //one no longer holds the employee, an entry is the ticket, the email and the outcome
+    private final Cache<Long, PendingCreate> acks;
+
+    private final AtomicLong tickets = new AtomicLong();
+
+    private volatile boolean running;
+
+    //submits hold the read lock from the running check to the offer, stop takes the write lock to
+    //flip running, so no create lands in the queue after the flusher saw it stopped and empty
+    private final ReadWriteLock stopLock = new ReentrantReadWriteLock();
+
+    private Thread flusher;
+
+    public EmployeeWriteBehindServiceImpl(EmployeeService employeeService,
+                                          @Value("${employee.write-behind.queue-capacity:10000}") int queueCapacity,
+                                          @Value("${employee.write-behind.max-batch-size:500}") int maxBatchSize,
+                                          @Value("${employee.write-behind.max-delay:50ms}") Duration maxDelay,
+                                          @Value("${employee.write-behind.ack-retention:10m}") Duration ackRetention,
+                                          @Value("${employee.write-behind.max-acks:100000}") long maxAcks) {
+        //every queued create needs its acknowledgement
+        if (maxAcks < queueCapacity) {
+            throw new IllegalStateException("employee.write-behind.max-acks can't be lower than employee.write-behind.queue-capacity");
+        }
+        this.employeeService = employeeService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.acks = Caffeine.newBuilder().expireAfterWrite(ackRetention).maximumSize(maxAcks).build();
+    }
+
+    @Override
+    public EmployeeCreateAck submit(Employee employee) {
+        PendingCreate pending = new PendingCreate(tickets.incrementAndGet(), employee);
+        //taken before the offer, the flusher may complete the create before submit returns
+        EmployeeCreateAck accepted = pending.current();
+        acks.put(pending.ticket, pending);
+        boolean queued;
+        stopLock.readLock().lock();
+        try {
+            queued = running && queue.offer(pending);
+        } finally {
+            stopLock.readLock().unlock();
+        }
+        if (!queued) {
+            acks.invalidate(pending.ticket);
+            throw new WriteBehindQueueFull("Write-behind queue is full or stopped, retry later");
+        }
+        return accepted;
+    }
+
+    @Override
+    public EmployeeCreateAck getAck(long ticket) {
+        return pending(ticket).current();
+    }
+
+    @Override
+    public CompletableFuture<EmployeeCreateAck> awaitAck(long ticket, Duration wait) {
+        PendingCreate pending = pending(ticket);
+        return pending.result.copy().completeOnTimeout(pending.current(), wait.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private PendingCreate pending(long ticket) {
+        PendingCreate pending = acks.getIfPresent(ticket);
+        if (pending == null) {
+            throw new ResurceNotFound("No create acknowledgement with ticket:" + ticket);
+        }
+        return pending;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        flusher = new Thread(this::flushLoop, "employee-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    //runs after the web server stopped taking requests, see getPhase
+    @Override
+    public void stop() {
+        stopLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            stopLock.writeLock().unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Write-behind queue stopped, {} creates left unflushed", queue.size());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void flushLoop() {
+        List<PendingCreate> group = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingCreate first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (group.size() < maxBatchSize) {
+                    queue.drainTo(group, maxBatchSize - group.size());
+                    long left = deadline - System.nanoTime();
+                    if (group.size() == maxBatchSize || left <= 0 || !running) {
+                        break;
+                    }
+                    //waits in slices so a stop isn't held up by a long max-delay
+                    PendingCreate next = queue.poll(Math.min(left, STOP_CHECK_NANOS), TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        group.add(next);
+                    }
+                }
+                flush(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Write-behind flush failed", e);
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingCreate> group) {
+        List<Employee> employees = new ArrayList<>(group.size());
+        for (PendingCreate pending : group) {
+            employees.add(pending.employee);
+        }
+        List<EmployeeBulkResult> results;
+        try {
+            results = employeeService.saveAll(employees);
+        } catch (RuntimeException e) {
+            if (group.size() > 1) {
+                //one bad create must not fail the others, retry them one group each
+                for (PendingCreate pending : group) {
+                    flush(List.of(pending));
+                }
+            } else {
+                complete(group.get(0), EmployeeCreateAck.Status.FAILED, null, e.getMessage());
+            }
+            return;
+        }
+        for (int i = 0; i < group.size(); i++) {
+            EmployeeBulkResult result = results.get(i);
+            complete(group.get(i), EmployeeCreateAck.Status.valueOf(result.getStatus().name()), result.getId(), result.getMessage());
+        }
+    }
+
+    //written again so the retention counts from the flush, not from the submit
+    private void complete(PendingCreate pending, EmployeeCreateAck.Status status, Long id, String message) {
+        pending.complete(status, id, message);
+        acks.put(pending.ticket, pending);
+    }
+
+    private static class PendingCreate {
+
+        private final long ticket;
+
+        private final String email;
+
+        //only read by the flusher, dropped once the create is done
+        private Employee employee;
+
+        private final CompletableFuture<EmployeeCreateAck> result = new CompletableFuture<>();
+
+        PendingCreate(long ticket, Employee employee) {
+            this.ticket = ticket;
+            this.email = employee.getEmail();
+            this.employee = employee;
+        }
+
+        EmployeeCreateAck current() {
+            return result.getNow(EmployeeCreateAck.builder().ticket(ticket).status(EmployeeCreateAck.Status.PENDING)
+                    .email(email).build());
+        }
+
+        void complete(EmployeeCreateAck.Status status, Long id, String message) {
+            result.complete(EmployeeCreateAck.builder().ticket(ticket).status(status).id(id).email(email)
+                    .message(message).build());
+            employee = null;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.jd.springboot.services.Impl;
+
+import com.jd.springboot.cache.EmployeeCacheStats;
+import com.jd.springboot.exception.EmailChangeAcrossShards;
+import com.jd.springboot.exception.ResurceNotFound;
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeBulkResult;
+import com.jd.springboot.model.EmployeeChanges;
+import com.jd.springboot.model.EmployeeField;
+import com.jd.springboot.model.EmployeeMultiGetResult;
+import com.jd.springboot.model.EmployeePatch;
+import com.jd.springboot.model.EmployeeProjection;
+import com.jd.springboot.model.EmployeeTableStamp;
+import com.jd.springboot.services.EmployeeService;
+import com.jd.springboot.sharding.ShardContext;
+import com.jd.springboot.sharding.ShardRoutingDataSource;
+import com.jd.springboot.sharding.ShardedIdGenerator;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Spreads the employees over the shards of {@link ShardRoutingDataSource} and runs the plain
+ * service on the right one. A new employee goes to the shard its email hashes to and gets an id
+ * that names that shard, so everything by id goes to exactly one shard. Reads of the whole table
+ * and the bulk writes run on every shard in parallel and are merged in id order.
+ *
+ * A batch or a bulk write over several shards is one transaction per shard, not one overall. The id
+ * pins an employee to its shard, so its email can only change to one that hashes to the same shard:
+ * that keeps every email on its own shard, where the unique index sees all of its creates.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "employee.sharding.enabled", havingValue = "true")
+public class ShardedEmployeeServiceImpl implements EmployeeService, DisposableBean {
+
+    private final EmployeeService employeeService;
+
+    private final int shardCount;
+
+    private final ExecutorService fanOut;
+
+    public ShardedEmployeeServiceImpl(@Qualifier("employeeServiceImpl") EmployeeService employeeService,
+                                      ShardRoutingDataSource shardRoutingDataSource,
+                                      @Value("${employee.sharding.fan-out-threads:8}") int fanOutThreads) {
+        this.employeeService = employeeService;
+        this.shardCount = shardRoutingDataSource.getShardCount();
+        this.fanOut = Executors.newFixedThreadPool(fanOutThreads, runnable -> {
+            Thread thread = new Thread(runnable, "employee-shard-fan-out");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public Employee saveEmployee(Employee employee) {
+        return ShardContext.call(shardOf(employee.getEmail()), () -> employeeService.saveEmployee(employee));
+    }
+
+    @Override
+    public List<EmployeeBulkResult> saveAll(List<Employee> employees) {
+        Map<Integer, List<Integer>> indexesByShard = IntStream.range(0, employees.size()).boxed()
+                .collect(Collectors.groupingBy(index -> shardOf(employees.get(index).getEmail()), TreeMap::new, Collectors.toList()));
+        List<EmployeeBulkResult> results = new ArrayList<>(Collections.nCopies(employees.size(), null));
+        onShards(indexesByShard.keySet(), shard -> {
+            List<Integer> indexes = indexesByShard.get(shard);
+            List<Employee> batch = indexes.stream().map(employees::get).collect(Collectors.toList());
+            return employeeService.saveAll(batch).stream()
+                    //the plain service numbers the shard's part of the batch from 0
+                    .peek(result -> result.setIndex(indexes.get(result.getIndex())))
+                    .collect(Collectors.toList());
+        }).forEach(shardResults -> shardResults.forEach(result -> results.set(result.getIndex(), result)));
+        return results;
+    }
+
+    @Override
+    public List<Employee> findAll() {
+        return merge(onAllShards(shard -> employeeService.findAll()), Employee::getId, Integer.MAX_VALUE);
+    }
+
+    //every shard returns its first limit rows after afterId, the first limit of them all make the page
+    @Override
+    public List<Employee> findPage(long afterId, int limit) {
+        return merge(onAllShards(shard -> employeeService.findPage(afterId, limit)), Employee::getId, limit);
+    }
+
+    @Override
+    public List<EmployeeProjection> findAll(Set<EmployeeField> fields) {
+        return merge(onAllShards(shard -> employeeService.findAll(fields)), EmployeeProjection::getId, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<EmployeeProjection> findPage(Set<EmployeeField> fields, long afterId, int limit) {
+        return merge(onAllShards(shard -> employeeService.findPage(fields, afterId, limit)), EmployeeProjection::getId, limit);
+    }
+
+    //One shard after the other, the consumer isn't expected to be thread safe
+    @Override
+    public void streamAll(Consumer<Employee> consumer) {
+        for (int shard = 0; shard < shardCount; shard++) {
+            ShardContext.run(shard, () -> employeeService.streamAll(consumer));
+        }
+    }
+
+    @Override
+    public Employee updateEmployee(Employee updatedEmployee) {
+        requireShardOfEmail(updatedEmployee.getId(), updatedEmployee.getEmail());
+        return onShardOf(updatedEmployee.getId(), () -> employeeService.updateEmployee(updatedEmployee));
+    }
+
+    @Override
+    public long patchEmployee(Long id, long expectedVersion, EmployeePatch patch) {
+        requireShardOfEmail(id, patch.getEmail());
+        return onShardOf(id, () -> employeeService.patchEmployee(id, expectedVersion, patch));
+    }
+
+    @Override
+    public void deleteEmployee(Long id) {
+        onShardOf(id, () -> {
+            employeeService.deleteEmployee(id);
+            return null;
+        });
+    }
+
+    @Override
+    public int deleteEmployees(Collection<Long> ids) {
+        //ids of shards that don't exist can't match anything
+        Map<Integer, List<Long>> idsByShard = ids.stream()
+                .filter(id -> ShardedIdGenerator.shardOf(id) < shardCount)
+                .collect(Collectors.groupingBy(ShardedIdGenerator::shardOf, TreeMap::new, Collectors.toList()));
+        return sum(onShards(idsByShard.keySet(), shard -> employeeService.deleteEmployees(idsByShard.get(shard))));
+    }
+
+    @Override
+    public int deleteEmployeesByEmailDomain(String domain) {
+        return sum(onAllShards(shard -> employeeService.deleteEmployeesByEmailDomain(domain)));
+    }
+
+    @Override
+    public int renameLastName(String lastName, String newLastName) {
+        return sum(onAllShards(shard -> employeeService.renameLastName(lastName, newLastName)));
+    }
+
+    @Override
+    public Optional<Employee> getEmployeeById(Long id) {
+        return hasShard(id) ? ShardContext.call(ShardedIdGenerator.shardOf(id), () -> employeeService.getEmployeeById(id)) : Optional.empty();
+    }
+
+    @Override
+    public Optional<EmployeeProjection> getEmployeeById(Long id, Set<EmployeeField> fields) {
+        return hasShard(id) ? ShardContext.call(ShardedIdGenerator.shardOf(id), () -> employeeService.getEmployeeById(id, fields)) : Optional.empty();
+    }
+
+    //The shard the email hashes to has it, unless the email was moved off it before such changes were refused
+    @Override
+    public Optional<Employee> getEmployeeByEmail(String email) {
+        int home = shardOf(email);
+        Optional<Employee> employee = ShardContext.call(home, () -> employeeService.getEmployeeByEmail(email));
+        if (employee.isPresent()) {
+            return employee;
+        }
+        List<Integer> others = IntStream.range(0, shardCount).filter(shard -> shard != home).boxed().collect(Collectors.toList());
+        return onShards(others, shard -> employeeService.getEmployeeByEmail(email)).stream()
+                .flatMap(Optional::stream)
+                .findFirst();
+    }
+
+    @Override
+    public EmployeeMultiGetResult getEmployeesByIds(List<Long> ids) {
+        //ids of shards that don't exist come out as missing
+        Map<Integer, List<Long>> idsByShard = ids.stream()
+                .distinct()
+                .filter(this::hasShard)
+                .collect(Collectors.groupingBy(ShardedIdGenerator::shardOf, TreeMap::new, Collectors.toList()));
+        Map<Long, Employee> found = new HashMap<>();
+        onShards(idsByShard.keySet(), shard -> employeeService.getEmployeesByIds(idsByShard.get(shard)))
+                .forEach(result -> result.getEmployees().forEach(employee -> found.put(employee.getId(), employee)));
+        return EmployeeMultiGetResult.of(ids, found);
+    }
+
+    @Override
+    public Optional<Long> getEmployeeVersion(Long id) {
+        return hasShard(id) ? ShardContext.call(ShardedIdGenerator.shardOf(id), () -> employeeService.getEmployeeVersion(id)) : Optional.empty();
+    }
+
+    //the shards hold disjoint rows, their stamps add up to the stamp of the merged reads
+    @Override
+    public EmployeeTableStamp getCollectionStamp() {
+        return EmployeeTableStamp.sum(onAllShards(shard -> employeeService.getCollectionStamp()));
+    }
+
+    //The change log, the search index and the cache are per instance, not per shard
+
+    @Override
+    public String getChangeStamp() {
+        return employeeService.getChangeStamp();
+    }
+
+    @Override
+    public EmployeeChanges getChanges(String since, int limit) {
+        return employeeService.getChanges(since, limit);
+    }
+
+    @Override
+    public CompletableFuture<EmployeeChanges> awaitChanges(String since, int limit, Duration wait) {
+        return employeeService.awaitChanges(since, limit, wait);
+    }
+
+    @Override
+    public List<Employee> searchEmployees(String query, int limit) {
+        return employeeService.searchEmployees(query, limit);
+    }
+
+    @Override
+    public EmployeeCacheStats getCacheStats() {
+        return employeeService.getCacheStats();
+    }
+
+    @Override
+    public void destroy() {
+        fanOut.shutdownNow();
+    }
+
+    //Emails are compared case-insensitively by MySQL, so they must hash the same whatever the case.
+    //An employee without email goes to shard 0, where the plain service turns it down
+    int shardOf(String email) {
+        return email == null ? 0 : Math.floorMod(email.toLowerCase(Locale.ROOT).hashCode(), shardCount);
+    }
+
+    //An employee stored off the shard of its email by an earlier version may keep that email
+    private void requireShardOfEmail(Long id, String email) {
+        if (email == null || !hasShard(id) || shardOf(email) == ShardedIdGenerator.shardOf(id)) {
+            return;
+        }
+        boolean unchanged = getEmployeeById(id).map(Employee::getEmail).filter(email::equalsIgnoreCase).isPresent();
+        if (!unchanged) {
+            throw new EmailChangeAcrossShards("Email " + email + " belongs to another shard than employee " + id
+                    + ", create a new employee with it instead");
+        }
+    }
+
+    private boolean hasShard(Long id) {
+        return id != null && ShardedIdGenerator.shardOf(id) < shardCount;
+    }
+
+    private <T> T onShardOf(Long id, Supplier<T> work) {
+        if (!hasShard(id)) {
+            throw new ResurceNotFound("Employee not found with id:" + id);
+        }
+        return ShardContext.call(ShardedIdGenerator.shardOf(id), work);
+    }
+
+    private <T> List<T> onAllShards(IntFunction<T> work) {
+        return onShards(IntStream.range(0, shardCount).boxed().collect(Collectors.toList()), work);
+    }
+
+    //Runs the work on each of the shards in parallel, results in the order of the shards.
+    //A failure on one shard fails the whole call, the other shards may have committed by then
+    private <T> List<T> onShards(Collection<Integer> shards, IntFunction<T> work) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (int shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> ShardContext.call(shard, () -> work.apply(shard)), fanOut));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    private static <T> List<T> merge(List<List<T>> perShard, Function<T, Long> id, int limit) {
+        return perShard.stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(id))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private static int sum(List<Integer> counts) {
+        return counts.stream().mapToInt(Integer::intValue).sum();
+    }
+}
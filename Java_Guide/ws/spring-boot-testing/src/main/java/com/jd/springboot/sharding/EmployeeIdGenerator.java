@@ -0,0 +1,44 @@
+package com.jd.springboot.sharding;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * The employee id generator. Unsharded it's the pooled sequence it always was, in sharded mode it
+ * takes ids from the ShardedIdGenerator that ShardingConfig hands to Hibernate, for the shard of
+ * the current ShardContext.
+ */
+public class EmployeeIdGenerator extends SequenceStyleGenerator {
+
+    public static final String SHARDED_ID_GENERATOR = "employee.sharding.id-generator";
+
+    private ShardedIdGenerator shardedIdGenerator;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        super.configure(type, params, serviceRegistry);
+        Object sharded = serviceRegistry.getService(ConfigurationService.class).getSettings().get(SHARDED_ID_GENERATOR);
+        if (sharded instanceof ShardedIdGenerator) {
+            shardedIdGenerator = (ShardedIdGenerator) sharded;
+        }
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        if (shardedIdGenerator == null) {
+            return super.generate(session, object);
+        }
+        Integer shard = ShardContext.current();
+        if (shard == null) {
+            throw new IllegalStateException("Employee insert outside of a shard context");
+        }
+        return shardedIdGenerator.next(shard);
+    }
+}
@@ -0,0 +1,41 @@
+package com.jd.springboot.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard the current thread works on. Transactions started inside pick their connection from
+ * that shard, so a transaction never spans two shards.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static <T> T call(int shard, Supplier<T> work) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public static void run(int shard, Runnable work) {
+        call(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    //null outside call/run
+    public static Integer current() {
+        return CURRENT.get();
+    }
+}
@@ -0,0 +1,53 @@
+package com.jd.springboot.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out connections of the shard of the ShardContext. A transaction outside any shard context
+ * is a bug and fails, plain connections outside a transaction (Hibernate's startup metadata,
+ * health checks) go to shard 0. The shard context has to be set before the transaction starts.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private final List<HikariDataSource> shards;
+
+    public ShardRoutingDataSource(List<HikariDataSource> shards) {
+        this.shards = shards;
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = ShardContext.current();
+        if (shard == null && TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Employee transaction started outside of a shard context");
+        }
+        return shard;
+    }
+
+    public List<HikariDataSource> getShards() {
+        return shards;
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    @Override
+    public void destroy() {
+        shards.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,122 @@
+package com.jd.springboot.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Logs how long each startup phase took once the application is ready, from the steps recorded by
+ * the BufferingApplicationStartup set in SpringBootTestingApplication. A bean's time includes the
+ * beans it depends on. load-test/compare-startup.sh puts the reports of several runs side by side.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "employee.startup.report", havingValue = "true")
+public class StartupReport implements ApplicationListener<ApplicationReadyEvent> {
+
+    static final int SLOWEST_BEANS = 5;
+
+    //phases in startup order, label first
+    private static final Map<String, String> PHASES = new LinkedHashMap<>();
+
+    static {
+        PHASES.put("spring.boot.application.starting", "application starting");
+        PHASES.put("spring.boot.application.environment-prepared", "environment prepared");
+        PHASES.put("spring.boot.application.context-prepared", "context prepared");
+        PHASES.put("spring.boot.application.context-loaded", "context loaded");
+        PHASES.put("spring.context.refresh", "context refresh");
+        PHASES.put("spring.context.beans.post-process", "- bean definitions");
+        PHASES.put("spring.context.beandef-registry.post-process", "-- component scan and auto-configuration");
+        PHASES.put("spring.data.repository.scanning", "-- repository scanning");
+        PHASES.put("spring.boot.application.started", "application started");
+    }
+
+    private static final String BEAN_INSTANTIATE = "spring.beans.instantiate";
+
+    private static final String SLOWEST_BEANS_AFTER = "spring.data.repository.scanning";
+
+    private final ApplicationStartup applicationStartup;
+
+    public StartupReport(ApplicationStartup applicationStartup) {
+        this.applicationStartup = applicationStartup;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!(applicationStartup instanceof BufferingApplicationStartup)) {
+            log.info("No startup report, the application wasn't started with a BufferingApplicationStartup");
+            return;
+        }
+        StartupTimeline timeline = ((BufferingApplicationStartup) applicationStartup).getBufferedTimeline();
+        long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        Map<String, Long> phases = new LinkedHashMap<>();
+        phases.put("jvm start to main", timeline.getStartTime().toEpochMilli() - jvmStart);
+        phases.putAll(phases(timeline.getEvents()));
+        phases.put("total, jvm start to ready", System.currentTimeMillis() - jvmStart);
+        log.info("Startup report, profiles {}\n{}", String.join(",", event.getApplicationContext().getEnvironment().getActiveProfiles()),
+                phases.entrySet().stream()
+                        .map(phase -> String.format("  %-52s %7d ms", phase.getKey(), phase.getValue()))
+                        .collect(Collectors.joining("\n")));
+    }
+
+    //Time per phase in ms, a step recorded several times is added up. The slowest beans created
+    //directly by the refresh follow the refresh's own phases
+    static Map<String, Long> phases(List<StartupTimeline.TimelineEvent> events) {
+        Map<String, Long> phases = new LinkedHashMap<>();
+        PHASES.forEach((step, label) -> {
+            Duration total = events.stream()
+                    .filter(event -> event.getStartupStep().getName().equals(step))
+                    .map(StartupTimeline.TimelineEvent::getDuration)
+                    .reduce(Duration::plus)
+                    .orElse(null);
+            if (total != null) {
+                phases.put(label, total.toMillis());
+            }
+            if (step.equals(SLOWEST_BEANS_AFTER)) {
+                phases.putAll(slowestBeans(events));
+            }
+        });
+        return phases;
+    }
+
+    private static Map<String, Long> slowestBeans(List<StartupTimeline.TimelineEvent> events) {
+        Set<Long> beanSteps = events.stream()
+                .map(StartupTimeline.TimelineEvent::getStartupStep)
+                .filter(step -> step.getName().equals(BEAN_INSTANTIATE))
+                .map(StartupStep::getId)
+                .collect(Collectors.toSet());
+        Map<String, Long> beans = new LinkedHashMap<>();
+        events.stream()
+                //a bean created for another one is part of that one's time already
+                .filter(event -> event.getStartupStep().getName().equals(BEAN_INSTANTIATE)
+                        && !beanSteps.contains(event.getStartupStep().getParentId()))
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(SLOWEST_BEANS)
+                .forEach(event -> beans.put("- bean " + beanName(event.getStartupStep()), event.getDuration().toMillis()));
+        return beans;
+    }
+
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return "?";
+    }
+}
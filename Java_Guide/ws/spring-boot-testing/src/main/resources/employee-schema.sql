@@ -0,0 +1,18 @@
+-- MySQL schema of the unsharded employees table, what ddl-auto=update creates. Applied once, like a
+-- migration, where Hibernate doesn't touch the schema (the fast-startup profile)
+CREATE TABLE IF NOT EXISTS employees (
+    id BIGINT NOT NULL,
+    fisrt_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    version BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_employees_email UNIQUE (email)
+) ENGINE = InnoDB;
+
+-- the pooled sequence of Employee.id, MySQL has no sequences
+CREATE TABLE IF NOT EXISTS employees_seq (
+    next_val BIGINT
+) ENGINE = InnoDB;
+
+INSERT INTO employees_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM employees_seq);
@@ -0,0 +1,11 @@
+-- schema of every shard in sharded mode, see ShardingConfig. Ids come from the application,
+-- so unlike the unsharded table there's no employees_seq
+CREATE TABLE IF NOT EXISTS employees (
+    id BIGINT NOT NULL,
+    fisrt_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    version BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_employees_email UNIQUE (email)
+);
@@ -0,0 +1,89 @@
+package com.jd.springboot.admission;
+
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveLimitTests {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    //Keeps the limit saturated and completes one request at a time with the given latency
+    private void saturate(AdaptiveLimit adaptiveLimit, long rttNanos, int samples) {
+        for (int i = 0; i < samples; i++) {
+            while (adaptiveLimit.tryAcquire()) {
+                //fill up to the limit
+            }
+            adaptiveLimit.onSuccess(rttNanos);
+        }
+    }
+
+    @Test
+    @DisplayName("Test the limit grows while it is used and the latency holds")
+    public void givenSteadyLatency_whenSaturated_thenLimitGrows() {
+        //given
+        AdaptiveLimit adaptiveLimit = new AdaptiveLimit(10, 2, 100);
+
+        //When
+        saturate(adaptiveLimit, FAST, 50);
+
+        //Then
+        Assertions.assertThat(adaptiveLimit.getLimit()).isGreaterThan(10).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("Test the limit shrinks once the latency rises past the tolerance")
+    public void givenRisingLatency_whenSaturated_thenLimitShrinks() {
+        //given
+        AdaptiveLimit adaptiveLimit = new AdaptiveLimit(50, 2, 100);
+        saturate(adaptiveLimit, FAST, 20);
+        int before = adaptiveLimit.getLimit();
+
+        //When
+        saturate(adaptiveLimit, 10 * FAST, 20);
+
+        //Then
+        Assertions.assertThat(adaptiveLimit.getLimit()).isLessThan(before / 2).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Test the long average comes back down after a period of high latency, so the next slowdown shrinks the limit again")
+    public void givenRecoveredLatency_whenSlowingDownAgain_thenLimitShrinks() {
+        //given
+        AdaptiveLimit adaptiveLimit = new AdaptiveLimit(50, 2, 100);
+        saturate(adaptiveLimit, FAST, 20);
+        saturate(adaptiveLimit, 10 * FAST, 3000);
+        saturate(adaptiveLimit, FAST, 100);
+        int before = adaptiveLimit.getLimit();
+
+        //When
+        //still far below the long average, were it left at the high latency
+        saturate(adaptiveLimit, 4 * FAST, 20);
+
+        //Then
+        Assertions.assertThat(adaptiveLimit.getLimit()).isLessThan(before);
+    }
+
+    @Test
+    @DisplayName("Test an idle limit doesn't grow and failures cut it down to the minimum at most")
+    public void givenIdleOrFailing_whenSamples_thenNoGrowthAndDecrease() {
+        //given
+        AdaptiveLimit adaptiveLimit = new AdaptiveLimit(10, 5, 100);
+
+        //When
+        for (int i = 0; i < 50; i++) {
+            adaptiveLimit.tryAcquire();
+            adaptiveLimit.onSuccess(FAST);
+        }
+
+        //Then
+        Assertions.assertThat(adaptiveLimit.getLimit()).isEqualTo(10);
+        for (int i = 0; i < 50; i++) {
+            adaptiveLimit.tryAcquire();
+            adaptiveLimit.onDropped();
+        }
+        Assertions.assertThat(adaptiveLimit.getLimit()).isEqualTo(5);
+        Assertions.assertThat(adaptiveLimit.getInFlight()).isZero();
+    }
+}
@@ -0,0 +1,152 @@
+package com.jd.springboot.admission;
+
+import com.jd.springboot.controller.EmployeeController;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.DispatcherType;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+public class AdmissionInterceptorTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final Map<EndpointClass, AdaptiveLimit> limits = new EnumMap<>(EndpointClass.class);
+
+    private AdmissionInterceptor admissionInterceptor;
+
+    @BeforeEach
+    public void setup() {
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            limits.put(endpointClass, new AdaptiveLimit(1, 1, 10));
+        }
+        admissionInterceptor = new AdmissionInterceptor(limits, Duration.ofMillis(1500), Duration.ofMinutes(1), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Test requests over the limit of their class get 503 with Retry-After, other classes are unaffected")
+    public void givenFullLimit_whenPreHandle_thenRejectedWithRetryAfter() throws Exception {
+        //given
+        Assertions.assertThat(admissionInterceptor.preHandle(new MockHttpServletRequest("GET", "/api/employees/1"),
+                new MockHttpServletResponse(), null)).isTrue();
+
+        //When
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        boolean admitted = admissionInterceptor.preHandle(new MockHttpServletRequest("GET", "/api/employees"), rejected, null);
+
+        //Then
+        Assertions.assertThat(admitted).isFalse();
+        Assertions.assertThat(rejected.getStatus()).isEqualTo(503);
+        Assertions.assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        Assertions.assertThat(admissionInterceptor.preHandle(new MockHttpServletRequest("PUT", "/api/employees/1"),
+                new MockHttpServletResponse(), null)).isTrue();
+        Assertions.assertThat(meterRegistry.get("employee.admission.rejected").tag("class", "read").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Test bulk writes are turned away while reads are being turned away")
+    public void givenRejectedRead_whenBulkWrite_thenRejected() throws Exception {
+        //given
+        admissionInterceptor.preHandle(new MockHttpServletRequest("GET", "/api/employees"), new MockHttpServletResponse(), null);
+        admissionInterceptor.preHandle(new MockHttpServletRequest("GET", "/api/employees"), new MockHttpServletResponse(), null);
+
+        //When
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean admitted = admissionInterceptor.preHandle(new MockHttpServletRequest("POST", "/api/employees/bulk"), response, null);
+
+        //Then
+        Assertions.assertThat(admitted).isFalse();
+        Assertions.assertThat(response.getStatus()).isEqualTo(503);
+        Assertions.assertThat(limits.get(EndpointClass.BULK_WRITE).getInFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("Test the slot is given back when the request completes or goes async")
+    public void givenAdmittedRequest_whenCompletedOrAsync_thenSlotReleased() throws Exception {
+        //given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/employees/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        admissionInterceptor.preHandle(request, response, null);
+
+        //When
+        admissionInterceptor.afterCompletion(request, response, null, null);
+        MockHttpServletRequest longPoll = new MockHttpServletRequest("GET", "/api/employees/changes");
+        admissionInterceptor.preHandle(longPoll, new MockHttpServletResponse(), null);
+        admissionInterceptor.afterConcurrentHandlingStarted(longPoll, new MockHttpServletResponse(), null);
+
+        //Then
+        Assertions.assertThat(limits.get(EndpointClass.READ).getInFlight()).isZero();
+        admissionInterceptor.afterCompletion(longPoll, new MockHttpServletResponse(), null, null);
+        Assertions.assertThat(limits.get(EndpointClass.READ).getInFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("Test a streamed body keeps its slot until its async dispatch completes")
+    public void givenStream_whenAsyncStarted_thenSlotHeldUntilCompletion() throws Exception {
+        //given
+        EmployeeController controller = new EmployeeController(null, null, null);
+        List<HandlerMethod> streams = List.of(new HandlerMethod(controller, "streamAllEmployees"),
+                new HandlerMethod(controller, "exportEmployees", boolean.class));
+
+        for (HandlerMethod stream : streams) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/employees/export");
+            admissionInterceptor.preHandle(request, new MockHttpServletResponse(), stream);
+
+            //When
+            admissionInterceptor.afterConcurrentHandlingStarted(request, new MockHttpServletResponse(), stream);
+
+            //Then
+            Assertions.assertThat(limits.get(EndpointClass.READ).getInFlight()).isEqualTo(1);
+            request.setDispatcherType(DispatcherType.ASYNC);
+            Assertions.assertThat(admissionInterceptor.preHandle(request, new MockHttpServletResponse(), stream)).isTrue();
+            admissionInterceptor.afterCompletion(request, new MockHttpServletResponse(), stream, null);
+            Assertions.assertThat(limits.get(EndpointClass.READ).getInFlight()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("Test a 503 with Retry-After from the service doesn't cut the limit, another 5xx does")
+    public void givenBackPressure503_whenAfterCompletion_thenLimitKept() throws Exception {
+        //given
+        limits.put(EndpointClass.WRITE, new AdaptiveLimit(10, 1, 10));
+        admissionInterceptor = new AdmissionInterceptor(limits, Duration.ofSeconds(1), Duration.ofMinutes(1), new SimpleMeterRegistry());
+        MockHttpServletResponse queueFull = new MockHttpServletResponse();
+        queueFull.setStatus(503);
+        queueFull.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        MockHttpServletResponse failed = new MockHttpServletResponse();
+        failed.setStatus(500);
+
+        //When
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/employees");
+        admissionInterceptor.preHandle(request, new MockHttpServletResponse(), null);
+        admissionInterceptor.afterCompletion(request, queueFull, null, null);
+
+        //Then
+        Assertions.assertThat(limits.get(EndpointClass.WRITE).getLimit()).isEqualTo(10);
+        Assertions.assertThat(limits.get(EndpointClass.WRITE).getInFlight()).isZero();
+        MockHttpServletRequest next = new MockHttpServletRequest("POST", "/api/employees");
+        admissionInterceptor.preHandle(next, new MockHttpServletResponse(), null);
+        admissionInterceptor.afterCompletion(next, failed, null, null);
+        Assertions.assertThat(limits.get(EndpointClass.WRITE).getLimit()).isEqualTo(9);
+    }
+
+    @Test
+    @DisplayName("Test endpoint classes of the employee endpoints")
+    public void givenRequests_whenEndpointClass_thenClassified() {
+        Assertions.assertThat(EndpointClass.of(new MockHttpServletRequest("GET", "/api/employees"))).isEqualTo(EndpointClass.READ);
+        Assertions.assertThat(EndpointClass.of(new MockHttpServletRequest("POST", "/api/employees"))).isEqualTo(EndpointClass.WRITE);
+        Assertions.assertThat(EndpointClass.of(new MockHttpServletRequest("DELETE", "/api/employees/1"))).isEqualTo(EndpointClass.WRITE);
+        Assertions.assertThat(EndpointClass.of(new MockHttpServletRequest("DELETE", "/api/employees"))).isEqualTo(EndpointClass.BULK_WRITE);
+        Assertions.assertThat(EndpointClass.of(new MockHttpServletRequest("POST", "/api/employees/import"))).isEqualTo(EndpointClass.BULK_WRITE);
+        Assertions.assertThat(EndpointClass.of(new MockHttpServletRequest("PATCH", "/api/employees/last-name"))).isEqualTo(EndpointClass.BULK_WRITE);
+    }
+}
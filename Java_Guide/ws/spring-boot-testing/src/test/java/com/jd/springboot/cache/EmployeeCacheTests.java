@@ -0,0 +1,99 @@
+package com.jd.springboot.cache;
+
+import com.jd.springboot.model.Employee;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class EmployeeCacheTests {
+
+    private final Employee employee = Employee.builder().id(1L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build();
+
+    @Test
+    @DisplayName("Test negative lookups expire after the negative ttl")
+    public void givenNotFound_whenNegativeTtlElapsed_thenLoaderIsCalledAgain() throws InterruptedException {
+        //given
+        EmployeeCache employeeCache = new EmployeeCache(10, Duration.ofMinutes(10), Duration.ofMillis(20));
+        AtomicInteger loads = new AtomicInteger();
+
+        //When
+        employeeCache.get(2L, id -> { loads.incrementAndGet(); return Optional.empty(); });
+        employeeCache.get(2L, id -> { loads.incrementAndGet(); return Optional.empty(); });
+        Thread.sleep(50);
+        employeeCache.get(2L, id -> { loads.incrementAndGet(); return Optional.empty(); });
+
+        //Then
+        Assertions.assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Test invalidated employees are loaded again")
+    public void givenCachedEmployee_whenInvalidated_thenLoaderIsCalledAgain() {
+        //given
+        EmployeeCache employeeCache = new EmployeeCache(10, Duration.ofMinutes(10), Duration.ofSeconds(30));
+        AtomicInteger loads = new AtomicInteger();
+
+        //When
+        employeeCache.get(1L, id -> { loads.incrementAndGet(); return Optional.of(employee); });
+        employeeCache.invalidateAll(List.of(1L));
+        Optional<Employee> reloaded = employeeCache.get(1L, id -> { loads.incrementAndGet(); return Optional.of(employee); });
+
+        //Then
+        Assertions.assertThat(loads.get()).isEqualTo(2);
+        Assertions.assertThat(reloaded).contains(employee);
+        Assertions.assertThat(reloaded.get()).isNotSameAs(employee);
+    }
+
+    @Test
+    @DisplayName("Test getAll hands only the ids not cached yet to the loader, in one call")
+    public void givenPartlyCachedIds_whenGetAll_thenLoaderGetsOnlyMisses() {
+        //given
+        EmployeeCache employeeCache = new EmployeeCache(10, Duration.ofMinutes(10), Duration.ofSeconds(30));
+        employeeCache.get(1L, id -> Optional.of(employee));
+        List<Set<Long>> loads = new ArrayList<>();
+
+        //When
+        Map<Long, Optional<Employee>> found = employeeCache.getAll(List.of(3L, 1L, 2L), ids -> {
+            loads.add(ids);
+            return ids.stream().collect(Collectors.toMap(Function.identity(), id -> Optional.<Employee>empty()));
+        });
+        employeeCache.getAll(List.of(2L, 3L), ids -> { loads.add(ids); return Map.of(); });
+
+        //Then
+        Assertions.assertThat(loads).containsExactly(Set.of(2L, 3L));
+        Assertions.assertThat(found.get(1L)).contains(employee);
+        Assertions.assertThat(found.get(2L)).isEmpty();
+        Assertions.assertThat(found.get(3L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Test only the first lookup of an id counts as a miss in the cache metrics")
+    public void givenRepeatedLookups_whenBoundToRegistry_thenOneMissRestHits() {
+        //given
+        EmployeeCache employeeCache = new EmployeeCache(10, Duration.ofMinutes(10), Duration.ofSeconds(30));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        employeeCache.bindTo(registry);
+
+        //When
+        for (int i = 0; i < 3; i++) {
+            employeeCache.get(1L, id -> Optional.of(employee));
+        }
+
+        //Then
+        Assertions.assertThat(registry.get("cache.gets").tags("cache", EmployeeCache.CACHE_NAME, "result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+        Assertions.assertThat(registry.get("cache.gets").tags("cache", EmployeeCache.CACHE_NAME, "result", "hit")
+                .functionCounter().count()).isEqualTo(2);
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.jd.springboot.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class SingleFlightTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void shutdown() {
+        callers.shutdownNow();
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get(SingleFlight.METRIC_NAME).tag("lookup", "test").tag("outcome", outcome).counter().count();
+    }
+
+    //Starts 8 callers for the key, the first load is held until all of them have asked
+    private List<CompletableFuture<String>> burst(SingleFlight<Long, String> singleFlight, AtomicInteger loads,
+                                                  CountDownLatch release, RuntimeException failure) {
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> singleFlight.load(1L, id -> {
+                loads.incrementAndGet();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+                return "employee " + id;
+            }), callers));
+        }
+        return results;
+    }
+
+    private void awaitCallers(SingleFlight<Long, String> singleFlight, int callers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count("executed") + count("coalesced") < callers && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    @DisplayName("Test concurrent callers of the same key share one load and are counted as coalesced")
+    public void givenConcurrentCallers_whenLoad_thenOneLoadShared() throws InterruptedException {
+        //given
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>("test", meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        //When
+        List<CompletableFuture<String>> results = burst(singleFlight, loads, release, null);
+        awaitCallers(singleFlight, 8);
+        release.countDown();
+
+        //Then
+        Assertions.assertThat(results).allSatisfy(result -> Assertions.assertThat(result.join()).isEqualTo("employee 1"));
+        Assertions.assertThat(loads.get()).isEqualTo(1);
+        Assertions.assertThat(count("executed")).isEqualTo(1);
+        Assertions.assertThat(count("coalesced")).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Test a failed load fails every caller that shared it, the next call loads again")
+    public void givenFailingLoad_whenLoad_thenAllCallersFailAndNextCallLoads() throws InterruptedException {
+        //given
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>("test", meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("database down");
+
+        //When
+        List<CompletableFuture<String>> results = burst(singleFlight, loads, release, failure);
+        awaitCallers(singleFlight, 8);
+        release.countDown();
+
+        //Then
+        Assertions.assertThat(results).allSatisfy(result ->
+                Assertions.assertThatThrownBy(result::join).hasCause(failure));
+        Assertions.assertThat(singleFlight.load(1L, id -> "employee " + id)).isEqualTo("employee 1");
+        Assertions.assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Test callers after forgetAll don't join the load already running")
+    public void givenRunningLoad_whenForgetAll_thenNewCallerLoadsAgain() throws InterruptedException {
+        //given
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>("test", meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> singleFlight.load(1L, id -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "before the write";
+        }), callers);
+        started.await(5, TimeUnit.SECONDS);
+
+        //When
+        singleFlight.forgetAll();
+        String loaded = singleFlight.load(1L, id -> "after the write");
+        release.countDown();
+
+        //Then
+        Assertions.assertThat(loaded).isEqualTo("after the write");
+        Assertions.assertThat(running.join()).isEqualTo("before the write");
+        Assertions.assertThat(count("executed")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Test forgetting a key leaves the loads of the other keys shared")
+    public void givenRunningLoads_whenForgetOneKey_thenOtherKeyStillCoalesces() throws InterruptedException {
+        //given
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>("test", meterRegistry);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<String>> running = new ArrayList<>();
+        for (long key = 1; key <= 2; key++) {
+            long id = key;
+            running.add(CompletableFuture.supplyAsync(() -> singleFlight.load(id, ignored -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "before the write " + id;
+            }), callers));
+        }
+        started.await(5, TimeUnit.SECONDS);
+
+        //When
+        singleFlight.forget(1L);
+        String loaded = singleFlight.load(1L, id -> "after the write " + id);
+        CompletableFuture<String> joined = CompletableFuture.supplyAsync(() -> singleFlight.load(2L, id -> "after the write " + id), callers);
+        awaitCallers(singleFlight, 4);
+        release.countDown();
+
+        //Then
+        Assertions.assertThat(loaded).isEqualTo("after the write 1");
+        Assertions.assertThat(joined.join()).isEqualTo("before the write 2");
+        Assertions.assertThat(count("coalesced")).isEqualTo(1);
+    }
+}
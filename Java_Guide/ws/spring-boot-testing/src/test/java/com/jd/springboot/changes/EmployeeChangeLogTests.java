@@ -0,0 +1,101 @@
+package com.jd.springboot.changes;
+
+import com.jd.springboot.exception.ChangeTokenExpired;
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeChange;
+import com.jd.springboot.model.EmployeeChanges;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class EmployeeChangeLogTests {
+
+    private final Employee employee = Employee.builder().id(1L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build();
+
+    @Test
+    @DisplayName("Test changes after a token come back in commit order, page by page")
+    public void givenChanges_whenSince_thenPagedInOrder() {
+        //given
+        EmployeeChangeLog employeeChangeLog = new EmployeeChangeLog(10);
+        String since = employeeChangeLog.currentToken();
+        employeeChangeLog.created(employee);
+        employeeChangeLog.updated(1L);
+        employeeChangeLog.deleted(1L);
+
+        //When
+        EmployeeChanges first = employeeChangeLog.since(since, 2);
+        EmployeeChanges second = employeeChangeLog.since(first.getNextToken(), 2);
+
+        //Then
+        Assertions.assertThat(first.getChanges()).extracting(EmployeeChange::getType)
+                .containsExactly(EmployeeChange.Type.CREATED, EmployeeChange.Type.UPDATED);
+        Assertions.assertThat(first.isHasMore()).isTrue();
+        Assertions.assertThat(second.getChanges()).extracting(EmployeeChange::getType).containsExactly(EmployeeChange.Type.DELETED);
+        Assertions.assertThat(second.isHasMore()).isFalse();
+        Assertions.assertThat(second.getNextToken()).isEqualTo(employeeChangeLog.currentToken());
+    }
+
+    @Test
+    @DisplayName("Test the logged employee is a copy taken at commit")
+    public void givenEmployeeChangedLater_whenSince_thenLoggedStateIsUnchanged() {
+        //given
+        EmployeeChangeLog employeeChangeLog = new EmployeeChangeLog(10);
+        String since = employeeChangeLog.currentToken();
+        employeeChangeLog.created(employee);
+
+        //When
+        employee.setLastName("Karode");
+
+        //Then
+        Assertions.assertThat(employeeChangeLog.since(since, 10).getChanges().get(0).getEmployee().getLastName()).isEqualTo("Birla");
+    }
+
+    @Test
+    @DisplayName("Test a token older than the ring or from another run is expired")
+    public void givenWrappedRing_whenSince_thenTokenExpired() {
+        //given
+        EmployeeChangeLog employeeChangeLog = new EmployeeChangeLog(2);
+        String since = employeeChangeLog.currentToken();
+        employeeChangeLog.deleted(1L);
+        employeeChangeLog.deleted(2L);
+        String retained = employeeChangeLog.currentToken();
+
+        //When
+        employeeChangeLog.deleted(3L);
+
+        //Then
+        Assertions.assertThatThrownBy(() -> employeeChangeLog.since(since, 10)).isInstanceOf(ChangeTokenExpired.class);
+        Assertions.assertThatThrownBy(() -> employeeChangeLog.since("abc-1", 10)).isInstanceOf(ChangeTokenExpired.class);
+        Assertions.assertThat(employeeChangeLog.since(retained, 10).getChanges()).extracting(EmployeeChange::getId).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Test malformed and future tokens are rejected")
+    public void givenBadToken_whenSince_thenIllegalArgument() {
+        EmployeeChangeLog employeeChangeLog = new EmployeeChangeLog(10);
+        String current = employeeChangeLog.currentToken();
+        String future = current.substring(0, current.lastIndexOf('-') + 1) + "5";
+
+        Assertions.assertThatThrownBy(() -> employeeChangeLog.since("nonsense", 10)).isInstanceOf(IllegalArgumentException.class);
+        Assertions.assertThatThrownBy(() -> employeeChangeLog.since(future, 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Test a waiter is woken by the next change or by its timeout")
+    public void givenWaiter_whenChangeOrTimeout_thenCompleted() {
+        //given
+        EmployeeChangeLog employeeChangeLog = new EmployeeChangeLog(10);
+        CompletableFuture<Void> woken = employeeChangeLog.awaitChange(Duration.ofMinutes(1));
+        CompletableFuture<Void> timedOut = employeeChangeLog.awaitChange(Duration.ofMillis(20));
+
+        //When
+        timedOut.join();
+        Assertions.assertThat(woken).isNotDone();
+        employeeChangeLog.created(employee);
+
+        //Then
+        Assertions.assertThat(woken).isDone();
+    }
+}
@@ -0,0 +1,68 @@
+package com.jd.springboot.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import com.jd.springboot.model.Employee;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Round trip and payload size of json against cbor and smile for 1, 100 and 10k employees. The
+ * (de)serialization times are measured by EmployeeEncodingBenchmark.
+ */
+public class BinaryEncodingConfigTests {
+
+    private final BinaryEncodingConfig config = new BinaryEncodingConfig();
+
+    private final Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+
+    BinaryEncodingConfigTests() {
+        mappers.put("json", Jackson2ObjectMapperBuilder.json().build());
+        mappers.put("cbor", config.cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json()).getObjectMapper());
+        mappers.put("smile", config.smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json()).getObjectMapper());
+    }
+
+    @Test
+    @DisplayName("Test employees survive a round trip through every encoding")
+    public void givenEmployees_whenRoundTrip_thenSameEmployees() throws IOException {
+        List<Employee> employees = employees(100);
+        for (ObjectMapper mapper : mappers.values()) {
+            List<Employee> decoded = mapper.readValue(mapper.writeValueAsBytes(employees), listType(mapper));
+            Assertions.assertThat(decoded).isEqualTo(employees);
+        }
+    }
+
+    @Test
+    @DisplayName("Test binary encodings are smaller than json")
+    public void givenEmployeeLists_whenEncoding_thenBinaryIsSmallerThanJson() throws IOException {
+        for (int count : new int[]{1, 100, 10000}) {
+            List<Employee> employees = employees(count);
+            byte[] json = mappers.get("json").writeValueAsBytes(employees);
+            for (String format : List.of("cbor", "smile")) {
+                byte[] encoded = mappers.get(format).writeValueAsBytes(employees);
+                Assertions.assertThat(encoded.length).as("%s of %d employees", format, count).isLessThan(json.length);
+            }
+        }
+    }
+
+    private static List<Employee> employees(int count) {
+        List<Employee> employees = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            employees.add(Employee.builder().id(i).firstName("Jitendra" + i).lastName("Birla").email("jitendra" + i + "@gmail.com")
+                    .version(i % 5).build());
+        }
+        return employees;
+    }
+
+    private static CollectionType listType(ObjectMapper mapper) {
+        return mapper.getTypeFactory().constructCollectionType(List.class, Employee.class);
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.jd.springboot.config;
+
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeMultiGetResult;
+import com.jd.springboot.model.EmployeePatch;
+import com.jd.springboot.routing.ReadYourWrites;
+import com.jd.springboot.services.EmployeeService;
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.List;
+import javax.servlet.http.Cookie;
+import org.assertj.core.api.Assertions;
+import org.hamcrest.CoreMatchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and a replica. The replica isn't fed by the
+ * primary, it has employees of its own, so every read shows which database answered it.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "employee.routing.enabled=true",
+        "employee.routing.replica-urls=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:replica-schema.sql'",
+        "employee.routing.sticky-window=1m",
+        "employee.l2-cache.enabled=false",
+        "employee.search.load-on-startup=false"
+})
+@AutoConfigureMockMvc
+public class DataSourceRoutingConfigTests {
+
+    private static final String REPLICA_ONLY_EMAIL = "replica.only@gmail.com";
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @AfterEach
+    void unpin() {
+        ReadYourWrites.clear();
+    }
+
+    @Test
+    @DisplayName("Test reads go to the replica and writes to the primary")
+    public void givenNoRecentWrite_whenFindAll_thenReadFromReplica() {
+        //When
+        employeeService.saveEmployee(Employee.builder().firstName("Jitu").lastName("Birla").email("jitu.primary@gmail.com").build());
+        ReadYourWrites.clear();
+
+        //Then
+        Assertions.assertThat(employeeService.findAll()).extracting(Employee::getEmail)
+                .contains(REPLICA_ONLY_EMAIL).doesNotContain("jitu.primary@gmail.com");
+    }
+
+    @Test
+    @DisplayName("Test the writing thread reads its own write within the sticky window")
+    public void givenWrite_whenFindAllOnSameThread_thenReadFromPrimary() {
+        //When
+        employeeService.saveEmployee(Employee.builder().firstName("Jitu").lastName("Birla").email("jitu.sticky@gmail.com").build());
+
+        //Then
+        Assertions.assertThat(employeeService.findAll()).extracting(Employee::getEmail)
+                .contains("jitu.sticky@gmail.com").doesNotContain(REPLICA_ONLY_EMAIL);
+    }
+
+    @Test
+    @DisplayName("Test the write's cookie keeps the client's next requests on the primary")
+    public void givenWriteCookie_whenGetAllEmployees_thenReadFromPrimary() throws Exception {
+        //given
+        Cookie pin = mockMvc.perform(MockMvcRequestBuilders.post("/api/employees").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Jitu\",\"lastName\":\"Birla\",\"email\":\"jitu.cookie@gmail.com\"}"))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andReturn().getResponse().getCookie(ReadYourWrites.COOKIE_NAME);
+        Assertions.assertThat(pin).isNotNull();
+
+        //When
+        //Then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/employees").cookie(pin))
+                .andExpect(MockMvcResultMatchers.content().string(CoreMatchers.containsString("jitu.cookie@gmail.com")));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/employees"))
+                .andExpect(MockMvcResultMatchers.content().string(CoreMatchers.containsString(REPLICA_ONLY_EMAIL)))
+                .andExpect(MockMvcResultMatchers.content().string(CoreMatchers.not(CoreMatchers.containsString("jitu.cookie@gmail.com"))));
+    }
+
+    @Test
+    @DisplayName("Test employees that go into the shared cache are read from the primary")
+    public void givenNoRecentWrite_whenGetEmployeeById_thenReadFromPrimary() {
+        //given
+        Employee saved = employeeService.saveEmployee(Employee.builder().firstName("Jitu").lastName("Birla").email("jitu.cached@gmail.com").build());
+        ReadYourWrites.clear();
+
+        //When
+        EmployeeMultiGetResult result = employeeService.getEmployeesByIds(List.of(saved.getId(), 1000L));
+
+        //Then
+        Assertions.assertThat(employeeService.getEmployeeById(saved.getId())).isPresent();
+        Assertions.assertThat(employeeService.getEmployeeById(1000L)).isEmpty();
+        Assertions.assertThat(result.getMissing()).containsExactly(1000L);
+        Assertions.assertThat(ReadYourWrites.isPinned()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Test a write on the primary is visible to other callers after a replica read of the employee")
+    public void givenReplicaRead_whenPatchedOnPrimary_thenGetEmployeeByIdReturnsWrite() {
+        //given
+        new JdbcTemplate(primaryDataSource).update("insert into employees (id, fisrt_name, last_name, email, version) "
+                + "values (1001, 'Lagging', 'Old', 'lagging@gmail.com', 0)");
+        Assertions.assertThat(employeeService.findAll()).extracting(Employee::getId).contains(1000L, 1001L);
+
+        //When
+        employeeService.patchEmployee(1001L, 0L, EmployeePatch.builder().lastName("New").build());
+        ReadYourWrites.clear();
+
+        //Then
+        Assertions.assertThat(employeeService.findAll()).filteredOn(employee -> employee.getId() == 1001L)
+                .extracting(Employee::getLastName).containsExactly("Old");
+        Assertions.assertThat(employeeService.getEmployeeById(1001L)).get().extracting(Employee::getLastName).isEqualTo("New");
+    }
+
+}
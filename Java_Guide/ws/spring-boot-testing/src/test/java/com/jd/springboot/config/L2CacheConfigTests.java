@@ -0,0 +1,45 @@
+package com.jd.springboot.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.jd.springboot.model.Employee;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import javax.cache.CacheManager;
+import org.assertj.core.api.Assertions;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class L2CacheConfigTests {
+
+    private final L2CacheConfig config = new L2CacheConfig();
+
+    @Test
+    @DisplayName("Test every region is created with its own sizing and handed to Hibernate")
+    public void givenSizing_whenCreatingCacheManager_thenRegionsAreSized() {
+        //When
+        CacheManager cacheManager = config.hibernateCacheManager(true, 100, Duration.ofMinutes(10), 50, Duration.ofMinutes(5));
+        Map<String, Object> properties = new HashMap<>();
+        config.hibernateCacheManagerCustomizer(cacheManager).customize(properties);
+
+        //Then
+        try {
+            Assertions.assertThat(maximumSize(cacheManager, Employee.CACHE_REGION)).isEqualTo(OptionalLong.of(100));
+            Assertions.assertThat(maximumSize(cacheManager, Employee.QUERY_CACHE_REGION)).isEqualTo(OptionalLong.of(50));
+            Assertions.assertThat(maximumSize(cacheManager, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME)).isEmpty();
+            Assertions.assertThat(properties).containsEntry(ConfigSettings.CACHE_MANAGER, cacheManager)
+                    .containsEntry(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        } finally {
+            cacheManager.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static OptionalLong maximumSize(CacheManager cacheManager, String region) {
+        return cacheManager.getCache(region).getConfiguration(CaffeineConfiguration.class).getMaximumSize();
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.jd.springboot.config;
+
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.repository.EmployeeRepository;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.persistence.EntityManagerFactory;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The second level cache on h2, with the regions of L2CacheConfig. Every repository call commits on
+ * its own, so the reads go through the cache regions rather than the persistence context of the test.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "employee.l2-cache.enabled=true",
+        "employee.l2-cache.statistics=true"
+})
+@Import(L2CacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class L2CacheInvalidationTests {
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    private Employee jitu;
+
+    private Employee suresh;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        jitu = employeeRepository.save(Employee.builder().firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build());
+        suresh = employeeRepository.save(Employee.builder().firstName("Suresh").lastName("Karode").email("suresh@gmail.com").build());
+        warmUp();
+    }
+
+    @AfterEach
+    void cleanup() {
+        employeeRepository.deleteAllInBatch();
+    }
+
+    //Reads both employees and the cached query twice, the second time they come from the cache
+    private void warmUp() {
+        read();
+        long entityHits = entities().getHitCount();
+        long queryHits = queries().getHitCount();
+        read();
+        Assertions.assertThat(entities().getHitCount()).isGreaterThan(entityHits);
+        Assertions.assertThat(queries().getHitCount()).isEqualTo(queryHits + 1);
+    }
+
+    private void read() {
+        employeeRepository.findById(jitu.getId());
+        employeeRepository.findById(suresh.getId());
+        employeeRepository.findByFirstLastName("Jitu", "Birla");
+    }
+
+    private CacheRegionStatistics entities() {
+        return statistics.getDomainDataRegionStatistics(Employee.CACHE_REGION);
+    }
+
+    private CacheRegionStatistics queries() {
+        return statistics.getQueryRegionStatistics(Employee.QUERY_CACHE_REGION);
+    }
+
+    private <T> T inTransaction(Supplier<T> write) {
+        return new TransactionTemplate(transactionManager).execute(status -> write.get());
+    }
+
+    @Test
+    @DisplayName("Test a save outdates the cached query and replaces the cached employee")
+    public void givenCachedEmployee_whenSave_thenReadsReturnWrite() {
+        //given
+        long queryMisses = queries().getMissCount();
+
+        //When
+        employeeRepository.save(jitu.toBuilder().email("jitu.new@gmail.com").build());
+
+        //Then
+        Assertions.assertThat(employeeRepository.findByFirstLastName("Jitu", "Birla").getEmail()).isEqualTo("jitu.new@gmail.com");
+        Assertions.assertThat(queries().getMissCount()).isEqualTo(queryMisses + 1);
+        Assertions.assertThat(employeeRepository.findById(jitu.getId())).get().extracting(Employee::getEmail).isEqualTo("jitu.new@gmail.com");
+    }
+
+    @Test
+    @DisplayName("Test the bulk patch outdates the cached query and evicts every employee of the region")
+    public void givenCachedEmployees_whenPatch_thenRegionIsEvicted() {
+        //given
+        long entityMisses = entities().getMissCount();
+        long queryMisses = queries().getMissCount();
+
+        //When
+        inTransaction(() -> employeeRepository.patch(jitu.getId(), jitu.getVersion(), null, "Sharma", null));
+
+        //Then
+        Assertions.assertThat(employeeRepository.findByFirstLastName("Jitu", "Birla")).isNull();
+        Assertions.assertThat(queries().getMissCount()).isEqualTo(queryMisses + 1);
+        Assertions.assertThat(employeeRepository.findById(jitu.getId())).get().extracting(Employee::getLastName).isEqualTo("Sharma");
+        employeeRepository.findById(suresh.getId());
+        Assertions.assertThat(entities().getMissCount()).isEqualTo(entityMisses + 2);
+    }
+
+    @Test
+    @DisplayName("Test the bulk last name rename outdates the cached query and evicts every employee of the region")
+    public void givenCachedEmployees_whenUpdateLastName_thenRegionIsEvicted() {
+        //given
+        long entityMisses = entities().getMissCount();
+        long queryMisses = queries().getMissCount();
+
+        //When
+        inTransaction(() -> employeeRepository.updateLastName(List.of(jitu.getId()), "Birla", "Sharma"));
+
+        //Then
+        Assertions.assertThat(employeeRepository.findByFirstLastName("Jitu", "Birla")).isNull();
+        Assertions.assertThat(queries().getMissCount()).isEqualTo(queryMisses + 1);
+        Assertions.assertThat(employeeRepository.findById(jitu.getId())).get().extracting(Employee::getLastName).isEqualTo("Sharma");
+        employeeRepository.findById(suresh.getId());
+        Assertions.assertThat(entities().getMissCount()).isEqualTo(entityMisses + 2);
+    }
+
+    @Test
+    @DisplayName("Test the bulk delete outdates the cached query and evicts every employee of the region")
+    public void givenCachedEmployees_whenDeleteByIds_thenRegionIsEvicted() {
+        //given
+        long entityMisses = entities().getMissCount();
+        long queryMisses = queries().getMissCount();
+
+        //When
+        inTransaction(() -> employeeRepository.deleteByIds(List.of(jitu.getId())));
+
+        //Then
+        Assertions.assertThat(employeeRepository.findByFirstLastName("Jitu", "Birla")).isNull();
+        Assertions.assertThat(queries().getMissCount()).isEqualTo(queryMisses + 1);
+        Assertions.assertThat(employeeRepository.findById(jitu.getId())).isEmpty();
+        employeeRepository.findById(suresh.getId());
+        Assertions.assertThat(entities().getMissCount()).isEqualTo(entityMisses + 2);
+    }
+
+}
@@ -0,0 +1,181 @@
+package com.jd.springboot.config;
+
+import com.jd.springboot.exception.EmailChangeAcrossShards;
+import com.jd.springboot.exception.EmployeeAlreadyExists;
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeBulkResult;
+import com.jd.springboot.model.EmployeeMultiGetResult;
+import com.jd.springboot.model.EmployeePatch;
+import com.jd.springboot.services.EmployeeService;
+import com.jd.springboot.sharding.ShardRoutingDataSource;
+import com.jd.springboot.sharding.ShardedIdGenerator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Three in-memory H2 databases stand in for the shards, each row is looked up on the shard its id
+ * names with plain jdbc.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "employee.sharding.enabled=true",
+        "employee.sharding.urls=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1",
+        "employee.l2-cache.enabled=false",
+        "employee.search.load-on-startup=false"
+})
+public class ShardingConfigTests {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    private List<Employee> employees(String prefix, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> Employee.builder().firstName("Jitu").lastName(prefix).email(prefix + i + "@gmail.com").build())
+                .collect(Collectors.toList());
+    }
+
+    private int rowsOnShard(int shard, long id) {
+        return new JdbcTemplate(shardRoutingDataSource.getShards().get(shard))
+                .queryForObject("select count(*) from employees where id = ?", Integer.class, id);
+    }
+
+    @Test
+    @DisplayName("Test every employee is stored on the shard its id names and read back from there")
+    public void givenEmployees_whenSaveEmployee_thenStoredOnShardOfId() {
+        //given
+        List<Employee> saved = new ArrayList<>();
+
+        //When
+        employees("placed", 12).forEach(employee -> saved.add(employeeService.saveEmployee(employee)));
+
+        //Then
+        Assertions.assertThat(saved).extracting(employee -> ShardedIdGenerator.shardOf(employee.getId()))
+                .contains(0, 1, 2);
+        for (Employee employee : saved) {
+            int shard = ShardedIdGenerator.shardOf(employee.getId());
+            for (int other = 0; other < shardRoutingDataSource.getShardCount(); other++) {
+                Assertions.assertThat(rowsOnShard(other, employee.getId())).isEqualTo(other == shard ? 1 : 0);
+            }
+            Assertions.assertThat(employeeService.getEmployeeById(employee.getId())).get()
+                    .extracting(Employee::getEmail).isEqualTo(employee.getEmail());
+        }
+    }
+
+    @Test
+    @DisplayName("Test findAll and keyset pages merge the shards in id order")
+    public void givenEmployeesOnAllShards_whenFindAllAndFindPage_thenMergedInIdOrder() {
+        //given
+        employeeService.saveAll(employees("paged", 20));
+        List<Long> all = employeeService.findAll().stream().map(Employee::getId).collect(Collectors.toList());
+
+        //When
+        List<Long> paged = new ArrayList<>();
+        long afterId = 0;
+        List<Employee> page;
+        while (!(page = employeeService.findPage(afterId, 7)).isEmpty()) {
+            Assertions.assertThat(page.size()).isLessThanOrEqualTo(7);
+            page.forEach(employee -> paged.add(employee.getId()));
+            afterId = page.get(page.size() - 1).getId();
+        }
+
+        //Then
+        Assertions.assertThat(all).isSorted().hasSizeGreaterThanOrEqualTo(20);
+        Assertions.assertThat(paged).isEqualTo(all);
+    }
+
+    @Test
+    @DisplayName("Test a batch over several shards reports each employee at its position")
+    public void givenBatchWithDuplicate_whenSaveAll_thenResultsInSubmittedOrder() {
+        //given
+        List<Employee> batch = employees("batched", 6);
+        batch.add(Employee.builder().firstName("Jitu").lastName("batched").email("batched2@gmail.com").build());
+
+        //When
+        List<EmployeeBulkResult> results = employeeService.saveAll(batch);
+
+        //Then
+        Assertions.assertThat(results).extracting(EmployeeBulkResult::getIndex).containsExactly(0, 1, 2, 3, 4, 5, 6);
+        Assertions.assertThat(results).extracting(EmployeeBulkResult::getEmail)
+                .containsExactlyElementsOf(batch.stream().map(Employee::getEmail).collect(Collectors.toList()));
+        Assertions.assertThat(results.get(6).getStatus()).isEqualTo(EmployeeBulkResult.Status.DUPLICATE);
+        Assertions.assertThat(results.subList(0, 6)).extracting(EmployeeBulkResult::getStatus)
+                .containsOnly(EmployeeBulkResult.Status.CREATED);
+    }
+
+    @Test
+    @DisplayName("Test an email change to another shard is refused, so a create of that email stays a duplicate check")
+    public void givenEmailOfOtherShard_whenPatchThenCreate_thenRefusedAndEmailUnique() {
+        //given
+        Employee saved = employeeService.saveEmployee(employees("emailed", 1).get(0));
+        int shard = ShardedIdGenerator.shardOf(saved.getId());
+        String moved = IntStream.range(0, 100).mapToObj(i -> "moved" + i + "@gmail.com")
+                .filter(email -> Math.floorMod(email.hashCode(), shardRoutingDataSource.getShardCount()) != shard)
+                .findFirst().get();
+        String sameShard = IntStream.range(0, 100).mapToObj(i -> "kept" + i + "@gmail.com")
+                .filter(email -> Math.floorMod(email.hashCode(), shardRoutingDataSource.getShardCount()) == shard)
+                .findFirst().get();
+
+        //When
+        Assertions.assertThatThrownBy(() -> employeeService.patchEmployee(saved.getId(), saved.getVersion(),
+                EmployeePatch.builder().email(moved).build())).isInstanceOf(EmailChangeAcrossShards.class);
+        employeeService.patchEmployee(saved.getId(), saved.getVersion(), EmployeePatch.builder().email(sameShard).build());
+        Employee created = employeeService.saveEmployee(Employee.builder().firstName("Suresh").lastName("emailed").email(moved).build());
+
+        //Then
+        Assertions.assertThat(employeeService.getEmployeeByEmail(sameShard)).get().extracting(Employee::getId).isEqualTo(saved.getId());
+        Assertions.assertThat(employeeService.getEmployeeByEmail(moved)).get().extracting(Employee::getId).isEqualTo(created.getId());
+        Assertions.assertThatThrownBy(() -> employeeService.saveEmployee(Employee.builder().firstName("Jitu").lastName("emailed").email(moved).build()))
+                .isInstanceOf(EmployeeAlreadyExists.class);
+    }
+
+    @Test
+    @DisplayName("Test deleting ids of several shards deletes on each of them")
+    public void givenIdsOnSeveralShards_whenDeleteEmployees_thenAllDeleted() {
+        //given
+        List<Long> ids = employeeService.saveAll(employees("deleted", 9)).stream()
+                .map(EmployeeBulkResult::getId).collect(Collectors.toList());
+        Assertions.assertThat(ids).extracting(ShardedIdGenerator::shardOf).hasSizeGreaterThan(1);
+
+        //When
+        int deleted = employeeService.deleteEmployees(ids);
+
+        //Then
+        Assertions.assertThat(deleted).isEqualTo(9);
+        ids.forEach(id -> Assertions.assertThat(employeeService.getEmployeeById(id)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test a multi-get over several shards returns the employees in the requested order")
+    public void givenIdsOnSeveralShards_whenGetEmployeesByIds_thenRequestedOrderAndMissing() {
+        //given
+        List<Long> ids = employeeService.saveAll(employees("multi", 9)).stream()
+                .map(EmployeeBulkResult::getId).collect(Collectors.toList());
+        Collections.reverse(ids);
+        long unknownShard = ShardedIdGenerator.MAX_SHARDS - 1L;
+        List<Long> requested = new ArrayList<>(ids);
+        requested.add(1, unknownShard);
+
+        //When
+        EmployeeMultiGetResult result = employeeService.getEmployeesByIds(requested);
+
+        //Then
+        Assertions.assertThat(result.getEmployees()).extracting(Employee::getId).containsExactlyElementsOf(ids);
+        Assertions.assertThat(result.getMissing()).containsExactly(unknownShard);
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.jd.springboot.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class VirtualThreadsConfigTests {
+
+    @Test
+    @DisplayName("Test virtual thread executor on JDK 21+")
+    public void givenJdk21_whenCreatingExecutor_thenTasksRunOnVirtualThreads() throws Exception {
+        Assumptions.assumeTrue(Runtime.version().feature() >= 21);
+
+        ExecutorService executor = VirtualThreadsConfig.newVirtualThreadPerTaskExecutor();
+        Future<Object> isVirtual = executor.submit(() -> Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()));
+
+        Assertions.assertThat(isVirtual.get()).isEqualTo(true);
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Test enabling virtual threads before JDK 21 fails fast")
+    public void givenOlderJdk_whenCreatingExecutor_thenIllegalState() {
+        Assumptions.assumeTrue(Runtime.version().feature() < 21);
+
+        Assertions.assertThatThrownBy(VirtualThreadsConfig::newVirtualThreadPerTaskExecutor)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("JDK 21");
+    }
+
+}
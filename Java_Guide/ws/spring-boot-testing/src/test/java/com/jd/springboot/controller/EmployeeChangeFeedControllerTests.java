@@ -0,0 +1,153 @@
+package com.jd.springboot.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jd.springboot.cache.EmployeeCache;
+import com.jd.springboot.cache.EmployeeLookups;
+import com.jd.springboot.changes.EmployeeChangeLog;
+import com.jd.springboot.changes.EmployeeChangeStreamer;
+import com.jd.springboot.exception.ChangeTokenExpired;
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeChange;
+import com.jd.springboot.model.EmployeeChanges;
+import com.jd.springboot.repository.EmployeeRepository;
+import com.jd.springboot.search.EmployeeSearchIndex;
+import com.jd.springboot.services.EmployeeService;
+import com.jd.springboot.services.Impl.EmployeeServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.hamcrest.CoreMatchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+@WebMvcTest(controllers = EmployeeChangeFeedController.class)
+@Import(EmployeeChangeStreamer.class)
+public class EmployeeChangeFeedControllerTests {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private EmployeeService employeeService;
+
+    private final EmployeeChanges changes = new EmployeeChanges(List.of(
+            new EmployeeChange("kx2-8", EmployeeChange.Type.CREATED, 1L,
+                    Employee.builder().id(1L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build()),
+            new EmployeeChange("kx2-9", EmployeeChange.Type.DELETED, 2L, null)), "kx2-9", false);
+
+    @Test
+    public void givenToken_whenGetChanges_thenReturnChangesAndNextToken() throws Exception {
+        //given
+        BDDMockito.given(employeeService.getChanges("kx2-7", 100)).willReturn(changes);
+
+        //When
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees/changes").param("since", "kx2-7")).andReturn();
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result));
+
+        //Then
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes.length()", CoreMatchers.is(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes[0].employee.email", CoreMatchers.is("jitu@gmail.com")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes[1].type", CoreMatchers.is("DELETED")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextToken", CoreMatchers.is("kx2-9")));
+    }
+
+    @Test
+    public void givenWaitMillis_whenGetChanges_thenLongPollCappedAtMaxWait() throws Exception {
+        //given
+        BDDMockito.given(employeeService.awaitChanges("kx2-7", 100, EmployeeChangeFeedController.MAX_CHANGES_WAIT))
+                .willReturn(CompletableFuture.completedFuture(changes));
+
+        //When
+        MvcResult pending = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees/changes")
+                        .param("since", "kx2-7").param("waitMillis", "600000"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted()).andReturn();
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(pending));
+
+        //Then
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextToken", CoreMatchers.is("kx2-9")));
+    }
+
+    @Test
+    public void givenExpiredToken_whenGetChanges_thenReturnGone() throws Exception {
+        //given
+        BDDMockito.given(employeeService.getChanges("kx1-3", 100))
+                .willThrow(new ChangeTokenExpired("Change token kx1-3 is from a previous run, reload the employees"));
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees/changes").param("since", "kx1-3"));
+
+        //Then
+        response.andExpect(MockMvcResultMatchers.status().isGone());
+    }
+
+    @Test
+    public void givenLastEventId_whenStreamChanges_thenEventsResumeAfterIt() throws Exception {
+        //given
+        BDDMockito.given(employeeService.getChanges("kx2-7", 500)).willReturn(changes);
+        BDDMockito.given(employeeService.awaitChanges(ArgumentMatchers.eq("kx2-9"), ArgumentMatchers.eq(500), ArgumentMatchers.any(Duration.class)))
+                .willReturn(new CompletableFuture<>());
+
+        //When
+        MvcResult stream = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees/changes").param("since", "kx1-1")
+                        .header(EmployeeChangeFeedController.LAST_EVENT_ID, "kx2-7").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted()).andReturn();
+
+        //Then
+        BDDMockito.verify(employeeService, BDDMockito.timeout(5000)).awaitChanges(ArgumentMatchers.eq("kx2-9"),
+                ArgumentMatchers.eq(500), ArgumentMatchers.any(Duration.class));
+        String body = stream.getResponse().getContentAsString();
+        org.assertj.core.api.Assertions.assertThat(body).contains("id:kx2-8\nevent:CREATED\ndata:{").contains("id:kx2-9\nevent:DELETED\n");
+    }
+
+    @Test
+    public void givenChangeTokenOfCollectionRead_whenGetChanges_thenOnlyWritesAfterTheReadAreReturned() throws Exception {
+        //given
+        EmployeeRepository employeeRepository = Mockito.mock(EmployeeRepository.class);
+        EmployeeServiceImpl service = new EmployeeServiceImpl(employeeRepository, null,
+                new EmployeeCache(100, Duration.ofMinutes(10), Duration.ofSeconds(30)), new EmployeeSearchIndex(0.3),
+                new EmployeeChangeLog(100), new EmployeeLookups(new SimpleMeterRegistry()));
+        MockMvc mirror = MockMvcBuilders.standaloneSetup(new EmployeeController(service, null, new ObjectMapper()),
+                new EmployeeChangeFeedController(service, null)).build();
+        BDDMockito.given(employeeRepository.saveAndFlush(ArgumentMatchers.any(Employee.class))).willAnswer(invocation -> invocation.getArgument(0));
+        Employee loaded = Employee.builder().id(1L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build();
+        Employee followed = Employee.builder().id(2L).firstName("Jitu1").lastName("Birla1").email("jitu1@gmail.com").build();
+        BDDMockito.given(employeeRepository.findAll()).willReturn(List.of(loaded));
+        service.saveEmployee(loaded);
+
+        //When
+        MvcResult snapshot = mirror.perform(MockMvcRequestBuilders.get("/api/employees"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()", CoreMatchers.is(1)))
+                .andReturn();
+        String changeToken = snapshot.getResponse().getHeader(EmployeeController.CHANGE_TOKEN);
+        service.saveEmployee(followed);
+        MvcResult result = mirror.perform(MockMvcRequestBuilders.get("/api/employees/changes").param("since", changeToken)).andReturn();
+        ResultActions response = mirror.perform(MockMvcRequestBuilders.asyncDispatch(result));
+
+        //Then
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes.length()", CoreMatchers.is(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes[0].type", CoreMatchers.is("CREATED")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes[0].id", CoreMatchers.is(2)));
+        mirror.perform(MockMvcRequestBuilders.get("/api/employees/changes")
+                        .param("since", snapshot.getResponse().getHeader(HttpHeaders.ETAG).replace("W/", "").replace("\"", "")))
+                .andExpect(MockMvcResultMatchers.status().is4xxClientError());
+    }
+
+}
@@ -1,20 +1,47 @@
 package com.jd.springboot.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.jd.springboot.config.BinaryEncodingConfig;
+import com.jd.springboot.exception.EmployeeAlreadyExists;
+import com.jd.springboot.exception.SearchIndexLoading;
 import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeBulkResult;
+import com.jd.springboot.model.EmployeeField;
+import com.jd.springboot.model.EmployeeImportReport;
+import com.jd.springboot.model.EmployeeMultiGetResult;
+import com.jd.springboot.model.EmployeePatch;
+import com.jd.springboot.model.EmployeeProjection;
+import com.jd.springboot.model.EmployeeTableStamp;
+import com.jd.springboot.services.EmployeeImportService;
 import com.jd.springboot.services.EmployeeService;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import org.assertj.core.api.Assertions;
 import org.hamcrest.CoreMatchers;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatchers;
 import org.mockito.BDDMockito;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
@@ -23,7 +50,8 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 /**
  * Created by jd birla on 25-11-2022 at 06:50
  */
-@WebMvcTest
+@WebMvcTest(controllers = EmployeeController.class)
+@Import(BinaryEncodingConfig.class)
 public class EmployeeControllerTests {
     @Autowired
     private MockMvc mockMvc;
@@ -31,10 +59,18 @@ public class EmployeeControllerTests {
     @MockBean
     private EmployeeService employeeService;
 
+    @MockBean
+    private EmployeeImportService employeeImportService;
+
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @BeforeEach
+    public void setup() {
+        BDDMockito.given(employeeService.getChangeStamp()).willReturn("kx2-7");
+    }
+
     @Test
     public void givenEmployee_whenCreateEmployee_thenReturnEmployee() throws Exception {
         //given
@@ -55,6 +91,67 @@ public class EmployeeControllerTests {
 
     }
 
+    @Test
+    public void givenExistingEmail_whenCreateEmployee_thenReturnConflict() throws Exception {
+        //given
+        Employee employee = Employee.builder().firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build();
+
+        BDDMockito.given(employeeService.saveEmployee(ArgumentMatchers.any(Employee.class)))
+                .willThrow(new EmployeeAlreadyExists("Employee already present with this email id:jitu@gmail.com"));
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.post("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(employee)));
+
+        //Then
+        response.andDo(MockMvcResultHandlers.print()).andExpect(MockMvcResultMatchers.status().isConflict());
+    }
+
+    @Test
+    public void givenEmployeeList_whenCreateEmployees_thenReturnResultPerRow() throws Exception {
+        //given
+        List<Employee> employeeList = new ArrayList<>();
+        employeeList.add(Employee.builder().firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build());
+        employeeList.add(Employee.builder().firstName("Jitu1").lastName("Birla1").email("jitu@gmail.com").build());
+
+        BDDMockito.given(employeeService.saveAll(ArgumentMatchers.anyList())).willReturn(List.of(
+                EmployeeBulkResult.builder().index(0).id(1L).email("jitu@gmail.com").status(EmployeeBulkResult.Status.CREATED).build(),
+                EmployeeBulkResult.builder().index(1).email("jitu@gmail.com").status(EmployeeBulkResult.Status.DUPLICATE).build()));
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.post("/api/employees/bulk")
+                .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(employeeList)));
+
+        //Then
+        response.andDo(MockMvcResultHandlers.print()).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.size()", CoreMatchers.is(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status", CoreMatchers.is("CREATED")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status", CoreMatchers.is("DUPLICATE")));
+    }
+
+    @Test
+    public void givenCsvUpload_whenImportEmployees_thenReturnImportReport() throws Exception {
+        //given
+        EmployeeImportReport report = new EmployeeImportReport();
+        report.setProcessed(2);
+        report.setImported(1);
+        report.setRejected(1);
+        report.setChunksCommitted(1);
+        report.getRejectedRows().add(new EmployeeImportReport.RejectedRow(3, "jitu@gmail.com", "duplicate"));
+
+        BDDMockito.given(employeeImportService.importEmployees(ArgumentMatchers.any(), ArgumentMatchers.eq(EmployeeImportService.Format.CSV)))
+                .willReturn(report);
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.post("/api/employees/import")
+                .contentType("text/csv").content("firstName,lastName,email\nJitu,Birla,jitu@gmail.com\nJitu,Birla,jitu@gmail.com\n"));
+
+        //Then
+        response.andDo(MockMvcResultHandlers.print()).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.imported", CoreMatchers.is(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rejectedRows[0].line", CoreMatchers.is(3)));
+    }
+
     @Test
     public void givenListOfEmployee_whenFindAllEmployees_thenReturnEmployeeList() throws Exception {
         //given
@@ -75,6 +172,166 @@ public class EmployeeControllerTests {
 
     }
 
+    @Test
+    public void givenAfterAndLimit_whenFindAllEmployees_thenReturnKeysetPage() throws Exception {
+        //given
+        List<Employee> page = new ArrayList<>();
+        page.add(Employee.builder().id(11L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build());
+        page.add(Employee.builder().id(12L).firstName("Jitu1").lastName("Birla1").email("jitu1@gmail.com").build());
+
+        BDDMockito.given(employeeService.findPage(10L, 2)).willReturn(page);
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees")
+                .param("after", "10").param("limit", "2"));
+
+        //Then
+        response.andDo(MockMvcResultHandlers.print()).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.size()", CoreMatchers.is(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].id", CoreMatchers.is(12)))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.LINK,
+                        CoreMatchers.containsString("after=12&limit=2")));
+    }
+
+    @Test
+    public void givenEmployees_whenStreamAllEmployees_thenReturnJsonArray() throws Exception {
+        //given
+        Employee employee = Employee.builder().id(1L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build();
+        Employee employee1 = Employee.builder().id(2L).firstName("Jitu1").lastName("Birla1").email("jitu1@gmail.com").build();
+        stubStreamAll(employee, employee1);
+
+        //When
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees/stream"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted()).andReturn();
+
+        //Then
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+                .andDo(MockMvcResultHandlers.print()).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.size()", CoreMatchers.is(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].email", CoreMatchers.is(employee1.getEmail())));
+    }
+
+    @Test
+    public void givenEmployees_whenExportEmployees_thenReturnOneJsonLinePerEmployee() throws Exception {
+        //given
+        stubStreamAll(Employee.builder().id(1L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build(),
+                Employee.builder().id(2L).firstName("Jitu1").lastName("Birla1").email("jitu1@gmail.com").build());
+
+        //When
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees/export"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted()).andReturn();
+
+        //Then
+        String body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        Assertions.assertThat(body).endsWith("\n");
+        Assertions.assertThat(lines).hasSize(2);
+        Assertions.assertThat(objectMapper.readValue(lines[1], Employee.class).getEmail()).isEqualTo("jitu1@gmail.com");
+    }
+
+    @Test
+    public void givenGzip_whenExportEmployees_thenReturnGzippedJsonLines() throws Exception {
+        //given
+        stubStreamAll(Employee.builder().id(1L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build());
+
+        //When
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees/export").param("gzip", "true"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted()).andReturn();
+
+        //Then
+        byte[] body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+        try (GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            String line = new String(gzipInputStream.readAllBytes(), StandardCharsets.UTF_8).trim();
+            Assertions.assertThat(objectMapper.readValue(line, Employee.class).getId()).isEqualTo(1L);
+        }
+    }
+
+    @Test
+    public void givenIdList_whenGetEmployeesByIds_thenReturnEmployeesAndMissing() throws Exception {
+        //given
+        Employee employee = Employee.builder().id(2L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build();
+        BDDMockito.given(employeeService.getEmployeesByIds(List.of(2L, 5L)))
+                .willReturn(new EmployeeMultiGetResult(List.of(employee), List.of(5L)));
+
+        //When
+        //Then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/employees").param("ids", "2,5"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.employees[0].id", CoreMatchers.is(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.missing[0]", CoreMatchers.is(5)));
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/employees/multi-get")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED).content("ids=2&ids=5"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.employees[0].email", CoreMatchers.is("jitu@gmail.com")));
+        Mockito.verify(employeeService, Mockito.never()).findAll();
+    }
+
+    @Test
+    public void givenTooManyIds_whenGetEmployeesByIds_thenReturnBadRequest() throws Exception {
+        //given
+        String ids = IntStream.rangeClosed(1, EmployeeController.MAX_BULK_IDS + 1).mapToObj(String::valueOf).collect(Collectors.joining(","));
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.post("/api/employees/multi-get")
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED).content("ids=" + ids));
+
+        //Then
+        response.andExpect(MockMvcResultMatchers.status().isBadRequest());
+        Mockito.verify(employeeService, Mockito.never()).getEmployeesByIds(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    public void givenEmptyIdElement_whenGetEmployeesByIds_thenReturnBadRequest() throws Exception {
+        //given
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees").param("ids", "1,,2"));
+        ResultActions posted = mockMvc.perform(MockMvcRequestBuilders.post("/api/employees/multi-get")
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED).content("ids=1&ids=&ids=2"));
+
+        //Then
+        response.andExpect(MockMvcResultMatchers.status().isBadRequest());
+        posted.andExpect(MockMvcResultMatchers.status().isBadRequest());
+        Mockito.verify(employeeService, Mockito.never()).getEmployeesByIds(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    public void givenIdsAndFields_whenGetEmployeesByIds_thenReturnBadRequest() throws Exception {
+        //given
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees")
+                .param("ids", "2,5").param("fields", "id,email"));
+
+        //Then
+        response.andExpect(MockMvcResultMatchers.status().isBadRequest());
+        Mockito.verifyNoInteractions(employeeService);
+    }
+
+    @Test
+    public void givenEmail_whenGetEmployeeByEmail_thenReturnEmployeeOrNotFound() throws Exception {
+        //given
+        Employee employee = Employee.builder().id(1L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").version(3L).build();
+        BDDMockito.given(employeeService.getEmployeeByEmail("jitu@gmail.com")).willReturn(Optional.of(employee));
+        BDDMockito.given(employeeService.getEmployeeByEmail("nobody@gmail.com")).willReturn(Optional.empty());
+
+        //When
+        //Then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/employees").param("email", "jitu@gmail.com"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "W/\"3\""))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id", CoreMatchers.is(1)));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/employees").param("email", "nobody@gmail.com"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+        Mockito.verify(employeeService, Mockito.never()).findAll();
+    }
+
     //Positive scenario
     @Test
     public void givenEmployeeId_whenFindById_thenReturnEmployee() throws Exception {
@@ -119,11 +376,11 @@ public class EmployeeControllerTests {
     public void givenEmployeeIdAndEmployee_whenUpdate_thenReturnUpdatedEmployee() throws Exception {
         //given
         long empid = 1L;
-        Employee savedEmployee = Employee.builder().id(1L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build();
         Employee updatedEmployee = Employee.builder().id(1L).firstName("Jitu1").lastName("Birla1").email("jitu1@gmail.com").build();
 
-        BDDMockito.given(employeeService.getEmployeeById(empid)).willReturn(Optional.of(savedEmployee));
-        BDDMockito.given(employeeService.updateEmployee(ArgumentMatchers.any(Employee.class))).willAnswer((invocation -> invocation.getArgument(0)));
+        BDDMockito.given(employeeService.getEmployeeVersion(empid)).willReturn(Optional.of(5L));
+        BDDMockito.given(employeeService.updateEmployee(ArgumentMatchers.any(Employee.class)))
+                .willAnswer(invocation -> invocation.<Employee>getArgument(0).toBuilder().version(6L).build());
 
         //When
         ResultActions response = mockMvc.perform(MockMvcRequestBuilders.put("/api/employees/{id}", empid)
@@ -133,22 +390,45 @@ public class EmployeeControllerTests {
         //Then
         response.andDo(MockMvcResultHandlers.print())
                 .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "W/\"6\""))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.firstName", CoreMatchers.is(updatedEmployee.getFirstName())))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.lastName", CoreMatchers.is(updatedEmployee.getLastName())))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.email", CoreMatchers.is(updatedEmployee.getEmail())));
+        //the version just read, not the one of a cached copy
+        BDDMockito.verify(employeeService).updateEmployee(ArgumentMatchers.argThat(employee -> employee.getVersion() == 5L));
+        BDDMockito.verify(employeeService, Mockito.never()).getEmployeeById(empid);
 
     }
 
+    @Test
+    public void givenIfMatch_whenUpdate_thenUpdatedOnThatVersion() throws Exception {
+        //given
+        long empid = 1L;
+        Employee updatedEmployee = Employee.builder().firstName("Jitu1").lastName("Birla1").email("jitu1@gmail.com").build();
+
+        BDDMockito.given(employeeService.getEmployeeVersion(empid)).willReturn(Optional.of(5L));
+        BDDMockito.given(employeeService.updateEmployee(ArgumentMatchers.argThat(employee -> employee.getVersion() == 3L)))
+                .willThrow(new OptimisticLockingFailureException("modified concurrently"));
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.put("/api/employees/{id}", empid)
+                .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(updatedEmployee)));
+
+        //Then
+        response.andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+        BDDMockito.verify(employeeService).updateEmployee(ArgumentMatchers.argThat(employee -> employee.getId() == empid));
+    }
+
     //Ngative scenario
     @Test
     public void givenEmployeeIdAndEmployee_whenUpdate_thenReturnNotFound() throws Exception {
         //given
         long empid = 1L;
-        Employee savedEmployee = Employee.builder().id(1L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build();
         Employee updatedEmployee = Employee.builder().id(1L).firstName("Jitu1").lastName("Birla1").email("jitu1@gmail.com").build();
 
-        BDDMockito.given(employeeService.getEmployeeById(empid)).willReturn(Optional.empty());
-        BDDMockito.given(employeeService.updateEmployee(ArgumentMatchers.any(Employee.class))).willAnswer((invocation -> invocation.getArgument(0)));
+        BDDMockito.given(employeeService.getEmployeeVersion(empid)).willReturn(Optional.empty());
 
         //When
         ResultActions response = mockMvc.perform(MockMvcRequestBuilders.put("/api/employees/{id}", empid)
@@ -158,10 +438,64 @@ public class EmployeeControllerTests {
         //Then
         response.andDo(MockMvcResultHandlers.print())
                 .andExpect(MockMvcResultMatchers.status().isNotFound());
+        BDDMockito.verify(employeeService, Mockito.never()).updateEmployee(ArgumentMatchers.any(Employee.class));
+
+
+    }
 
 
+    @Test
+    public void givenIfMatchAndPartialEmployee_whenPatch_thenReturnNoContentWithNewVersion() throws Exception {
+        //given
+        long empid = 1L;
+        EmployeePatch patch = EmployeePatch.builder().lastName("Birla1").build();
+
+        BDDMockito.given(employeeService.patchEmployee(ArgumentMatchers.eq(empid), ArgumentMatchers.eq(3L), ArgumentMatchers.any(EmployeePatch.class)))
+                .willReturn(4L);
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.patch("/api/employees/{id}", empid)
+                .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(patch)));
+
+        //Then
+        response.andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isNoContent())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "W/\"4\""));
     }
 
+    @Test
+    public void givenNoVersion_whenPatch_thenReturnPreconditionRequired() throws Exception {
+        //given
+        EmployeePatch patch = EmployeePatch.builder().lastName("Birla1").build();
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.patch("/api/employees/{id}", 1L)
+                .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(patch)));
+
+        //Then
+        response.andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isPreconditionRequired());
+        BDDMockito.verify(employeeService, Mockito.never())
+                .patchEmployee(ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong(), ArgumentMatchers.any());
+    }
+
+    @Test
+    public void givenStaleVersion_whenPatch_thenReturnConflict() throws Exception {
+        //given
+        EmployeePatch patch = EmployeePatch.builder().lastName("Birla1").version(2L).build();
+
+        BDDMockito.given(employeeService.patchEmployee(ArgumentMatchers.eq(1L), ArgumentMatchers.eq(2L), ArgumentMatchers.any(EmployeePatch.class)))
+                .willThrow(new OptimisticLockingFailureException("modified concurrently"));
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.patch("/api/employees/{id}", 1L)
+                .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(patch)));
+
+        //Then
+        response.andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+    }
 
     @Test
     public void givenEmployeeId_whenDeleteEmployee_thenReturn200() throws Exception {
@@ -179,4 +513,276 @@ public class EmployeeControllerTests {
 
     }
 
+    @Test
+    public void givenIds_whenDeleteEmployees_thenReturnAffectedCount() throws Exception {
+        //given
+        BDDMockito.given(employeeService.deleteEmployees(List.of(1L, 2L, 3L))).willReturn(2);
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.delete("/api/employees").param("ids", "1,2,3"));
+
+        //Then
+        response.andDo(MockMvcResultHandlers.print()).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.affected", CoreMatchers.is(2)));
+    }
+
+    @Test
+    public void givenEmailDomain_whenDeleteEmployees_thenReturnAffectedCount() throws Exception {
+        //given
+        BDDMockito.given(employeeService.deleteEmployeesByEmailDomain("gmail.com")).willReturn(5);
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.delete("/api/employees").param("emailDomain", "gmail.com"));
+
+        //Then
+        response.andDo(MockMvcResultHandlers.print()).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.affected", CoreMatchers.is(5)));
+    }
+
+    @Test
+    public void givenOldAndNewLastName_whenRenameLastName_thenReturnAffectedCount() throws Exception {
+        //given
+        BDDMockito.given(employeeService.renameLastName("Birla", "Birla1")).willReturn(7);
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.patch("/api/employees/last-name")
+                .param("from", "Birla").param("to", "Birla1"));
+
+        //Then
+        response.andDo(MockMvcResultHandlers.print()).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.operation", CoreMatchers.is("update")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.affected", CoreMatchers.is(7)));
+    }
+
+    @Test
+    public void givenQuery_whenSearchEmployees_thenReturnMatchesWithCappedLimit() throws Exception {
+        //given
+        BDDMockito.given(employeeService.searchEmployees("jitu bir", EmployeeController.MAX_SEARCH_LIMIT))
+                .willReturn(List.of(Employee.builder().id(1L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build()));
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees/search")
+                .param("q", "jitu bir").param("limit", "500"));
+
+        //Then
+        response.andDo(MockMvcResultHandlers.print()).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.size()", CoreMatchers.is(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].lastName", CoreMatchers.is("Birla")));
+    }
+
+    @Test
+    public void givenIndexLoading_whenSearchEmployees_thenReturnServiceUnavailableWithRetryAfter() throws Exception {
+        //given
+        BDDMockito.given(employeeService.searchEmployees("jitu", EmployeeController.DEFAULT_SEARCH_LIMIT))
+                .willThrow(new SearchIndexLoading("The search index is still loading, retry later"));
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees/search").param("q", "jitu"));
+
+        //Then
+        response.andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.RETRY_AFTER, "5"));
+    }
+
+    @Test
+    public void givenBlankQuery_whenSearchEmployees_thenReturnBadRequest() throws Exception {
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees/search").param("q", " "));
+
+        //Then
+        response.andExpect(MockMvcResultMatchers.status().isBadRequest());
+        Mockito.verifyNoInteractions(employeeService);
+    }
+
+    @Test
+    public void givenFields_whenFindEmployeePage_thenReturnOnlyThoseFieldsAndNextLink() throws Exception {
+        //given
+        EmployeeProjection projection = EmployeeProjection.of(
+                Employee.builder().id(7L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build(),
+                EnumSet.of(EmployeeField.ID, EmployeeField.EMAIL));
+        BDDMockito.given(employeeService.findPage(EnumSet.of(EmployeeField.ID, EmployeeField.EMAIL), 0L, 1))
+                .willReturn(List.of(projection));
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees")
+                .param("fields", "email, id").param("limit", "1"));
+
+        //Then
+        response.andDo(MockMvcResultHandlers.print()).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().json("[{\"id\":7,\"email\":\"jitu@gmail.com\"}]", true))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.LINK,
+                        "</api/employees?fields=id,email&after=7&limit=1>; rel=\"next\""));
+    }
+
+    @Test
+    public void givenUnknownField_whenFindEmployees_thenReturnBadRequest() throws Exception {
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees").param("fields", "id,salary"));
+
+        //Then
+        response.andExpect(MockMvcResultMatchers.status().isBadRequest());
+        Mockito.verifyNoInteractions(employeeService);
+    }
+
+    @Test
+    public void givenFields_whenGetEmployeeById_thenReturnOnlyThoseFields() throws Exception {
+        //given
+        Employee employee = Employee.builder().id(1L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").version(2L).build();
+        BDDMockito.given(employeeService.getEmployeeById(1L, EnumSet.of(EmployeeField.FIRST_NAME, EmployeeField.VERSION)))
+                .willReturn(Optional.of(EmployeeProjection.of(employee, EnumSet.of(EmployeeField.FIRST_NAME, EmployeeField.VERSION))));
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees/{id}", 1L).param("fields", "firstName,version"));
+
+        //Then
+        response.andDo(MockMvcResultHandlers.print()).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().json("{\"firstName\":\"Jitu\",\"version\":2}", true));
+    }
+
+    @Test
+    public void givenCurrentVersionTag_whenGetEmployeeById_thenReturnNotModifiedWithoutLoading() throws Exception {
+        //given
+        BDDMockito.given(employeeService.getEmployeeVersion(1L)).willReturn(Optional.of(3L));
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees/{id}", 1L)
+                .header(HttpHeaders.IF_NONE_MATCH, "W/\"3\""));
+
+        //Then
+        response.andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "W/\"3\""))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andExpect(MockMvcResultMatchers.content().string(""));
+        Mockito.verify(employeeService, Mockito.never()).getEmployeeById(1L);
+    }
+
+    @Test
+    public void givenStaleVersionTag_whenGetEmployeeById_thenReturnEmployeeWithNewTag() throws Exception {
+        //given
+        Employee employee = Employee.builder().id(1L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").version(4L).build();
+        BDDMockito.given(employeeService.getEmployeeVersion(1L)).willReturn(Optional.of(4L));
+        BDDMockito.given(employeeService.getEmployeeById(1L)).willReturn(Optional.of(employee));
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees/{id}", 1L)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\""));
+
+        //Then
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "W/\"4\""))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.version", CoreMatchers.is(4)));
+    }
+
+    @Test
+    public void givenCurrentTableStamp_whenFindAllEmployees_thenReturnNotModifiedWithoutQuerying() throws Exception {
+        //given
+        BDDMockito.given(employeeService.getCollectionStamp()).willReturn(EmployeeTableStamp.of(2, 7, 8, 0));
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"2-7-8-0\""));
+
+        //Then
+        response.andExpect(MockMvcResultMatchers.status().isNotModified());
+        Mockito.verify(employeeService, Mockito.never()).findAll();
+    }
+
+    @Test
+    public void givenOldTableStamp_whenFindAllEmployees_thenReturnEmployeesWithStampOfRows() throws Exception {
+        //given
+        //a write committed between the aggregate and the read
+        BDDMockito.given(employeeService.getCollectionStamp()).willReturn(EmployeeTableStamp.of(3, 9, 17, 5));
+        BDDMockito.given(employeeService.findAll()).willReturn(List.of(
+                Employee.builder().id(1L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").version(1L).build(),
+                Employee.builder().id(7L).firstName("Jitu1").lastName("Birla1").email("jitu1@gmail.com").build()));
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"2-7-8-0\""));
+
+        //Then
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().stringValues(HttpHeaders.ETAG, "W/\"2-7-8-1\""));
+    }
+
+    @Test
+    public void givenNoIfNoneMatch_whenFindAllEmployees_thenTableStampIsNotQueried() throws Exception {
+        //given
+        BDDMockito.given(employeeService.findAll()).willReturn(List.of(
+                Employee.builder().id(36L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").version(2L).build()));
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees"));
+
+        //Then
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "W/\"1-10-10-2\""))
+                .andExpect(MockMvcResultMatchers.header().string(EmployeeController.CHANGE_TOKEN, "kx2-7"));
+        Mockito.verify(employeeService, Mockito.never()).getCollectionStamp();
+    }
+
+    @Test
+    public void givenCurrentPageTag_whenFindEmployeesPage_thenReturnNotModifiedWithoutTableStamp() throws Exception {
+        //given
+        BDDMockito.given(employeeService.findPage(0L, 2)).willReturn(List.of(
+                Employee.builder().id(1L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build(),
+                Employee.builder().id(2L).firstName("Jitu1").lastName("Birla1").email("jitu1@gmail.com").version(3L).build()));
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees")
+                .param("limit", "2").header(HttpHeaders.IF_NONE_MATCH, "W/\"2-2-3-3\""));
+
+        //Then
+        response.andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.content().string(""));
+        Mockito.verify(employeeService, Mockito.never()).getCollectionStamp();
+    }
+
+    @Test
+    public void givenCborAccept_whenGetEmployeeById_thenReturnCborEmployee() throws Exception {
+        //given
+        Employee employee = Employee.builder().id(1L).firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build();
+        BDDMockito.given(employeeService.getEmployeeById(1L)).willReturn(Optional.of(employee));
+
+        //When
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees/{id}", 1L).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "W/\"0\""))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn();
+
+        //Then
+        Employee decoded = new ObjectMapper(new CBORFactory()).readValue(result.getResponse().getContentAsByteArray(), Employee.class);
+        Assertions.assertThat(decoded).isEqualTo(employee);
+    }
+
+    @Test
+    public void givenSmileBody_whenCreateEmployee_thenReturnJsonByDefault() throws Exception {
+        //given
+        Employee employee = Employee.builder().firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build();
+        BDDMockito.given(employeeService.saveEmployee(ArgumentMatchers.any(Employee.class)))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.post("/api/employees")
+                .contentType("application/x-jackson-smile")
+                .content(new ObjectMapper(new SmileFactory()).writeValueAsBytes(employee)));
+
+        //Then
+        response.andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.email", CoreMatchers.is("jitu@gmail.com")));
+    }
+
+    private void stubStreamAll(Employee... employees) {
+        BDDMockito.willAnswer(invocation -> {
+            Consumer<Employee> consumer = invocation.getArgument(0);
+            for (Employee employee : employees) {
+                consumer.accept(employee);
+            }
+            return null;
+        }).given(employeeService).streamAll(ArgumentMatchers.any());
+    }
+
 }
@@ -0,0 +1,85 @@
+package com.jd.springboot.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jd.springboot.exception.WriteBehindQueueFull;
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeCreateAck;
+import com.jd.springboot.services.EmployeeWriteBehindService;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import org.hamcrest.CoreMatchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+@WebMvcTest(controllers = EmployeeWriteBehindController.class, properties = "employee.write-behind.enabled=true")
+public class EmployeeWriteBehindControllerTests {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private EmployeeWriteBehindService employeeWriteBehindService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void givenEmployee_whenCreateAsync_thenReturnAcceptedWithAckLocation() throws Exception {
+        //given
+        Employee employee = Employee.builder().firstName("Jitu").lastName("Birla").email("jitu@gmail.com").build();
+        BDDMockito.given(employeeWriteBehindService.submit(ArgumentMatchers.any(Employee.class))).willReturn(
+                EmployeeCreateAck.builder().ticket(7L).status(EmployeeCreateAck.Status.PENDING).email("jitu@gmail.com").build());
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.post("/api/employees/async")
+                .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(employee)));
+
+        //Then
+        response.andExpect(MockMvcResultMatchers.status().isAccepted())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.LOCATION, "/api/employees/async/7"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.status", CoreMatchers.is("PENDING")));
+    }
+
+    @Test
+    public void givenFullQueue_whenCreateAsync_thenReturnServiceUnavailable() throws Exception {
+        //given
+        BDDMockito.given(employeeWriteBehindService.submit(ArgumentMatchers.any(Employee.class)))
+                .willThrow(new WriteBehindQueueFull("Write-behind queue is full or stopped, retry later"));
+
+        //When
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.post("/api/employees/async")
+                .contentType(MediaType.APPLICATION_JSON).content("{\"email\":\"jitu@gmail.com\"}"));
+
+        //Then
+        response.andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
+    @Test
+    public void givenTicket_whenAwaitAck_thenReturnCreatedAck() throws Exception {
+        //given
+        BDDMockito.given(employeeWriteBehindService.awaitAck(7L, Duration.ofSeconds(30))).willReturn(CompletableFuture.completedFuture(
+                EmployeeCreateAck.builder().ticket(7L).status(EmployeeCreateAck.Status.CREATED).id(51L).build()));
+
+        //When
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/employees/async/{ticket}", 7L).param("waitMillis", "60000"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted()).andReturn();
+
+        //Then
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.status", CoreMatchers.is("CREATED")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id", CoreMatchers.is(51)));
+    }
+
+}
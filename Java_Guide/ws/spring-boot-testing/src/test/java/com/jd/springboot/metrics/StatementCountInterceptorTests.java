@@ -0,0 +1,63 @@
+package com.jd.springboot.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import javax.servlet.DispatcherType;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+public class StatementCountInterceptorTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final StatementCountInterceptor interceptor = new StatementCountInterceptor(meterRegistry);
+
+    private final StatementCounter statementCounter = new StatementCounter();
+
+    @Test
+    @DisplayName("Test statements of a request are recorded under its uri pattern")
+    public void givenStatementsDuringRequest_whenCompleted_thenCountRecordedPerUri() {
+        //given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/employees/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/employees/{id}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        statementCounter.inspect("select 1");
+
+        //When
+        interceptor.preHandle(request, response, null);
+        statementCounter.inspect("select e.version from employees e where e.id=?");
+        statementCounter.inspect("select * from employees where id=?");
+        interceptor.afterCompletion(request, response, null, null);
+
+        //Then
+        DistributionSummary summary = meterRegistry.get(StatementCountInterceptor.METRIC_NAME)
+                .tag("uri", "/api/employees/{id}").tag("method", "GET").summary();
+        Assertions.assertThat(summary.count()).isEqualTo(1);
+        Assertions.assertThat(summary.totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Test an async request isn't recorded, its statements run on other threads")
+    public void givenAsyncRequest_whenCompleted_thenNothingRecorded() {
+        //given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/employees/export");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/employees/export");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        //When
+        interceptor.preHandle(request, response, null);
+        statementCounter.inspect("select * from employees order by id");
+        interceptor.afterConcurrentHandlingStarted(request, response, null);
+        request.setDispatcherType(DispatcherType.ASYNC);
+        interceptor.preHandle(request, response, null);
+        interceptor.afterCompletion(request, response, null, null);
+
+        //Then
+        Assertions.assertThat(meterRegistry.find(StatementCountInterceptor.METRIC_NAME).summary()).isNull();
+    }
+
+}
@@ -1,22 +1,32 @@
 package com.jd.springboot.repository;
 
 import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeField;
+import com.jd.springboot.model.EmployeeProjection;
+import com.jd.springboot.model.EmployeeTableStamp;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 
 /**
  * Created by jd birla on 23-11-2022 at 10:37
  */
-@DataJpaTest
+//runs on the embedded h2 that replaces the datasource, application.properties sets the mysql dialect
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
 public class EmployeeRepositoryTests {
     @Autowired
     private EmployeeRepository employeeRepository;
+    @Autowired
+    private TestEntityManager entityManager;
     private Employee employee;
     private Employee employee1;
 
@@ -164,4 +174,95 @@ public class EmployeeRepositoryTests {
 
     }
 
+    @Test
+    @DisplayName("Test keyset page of employees after an id")
+    public void givenAfterId_whenFetchingPage_thenReturingEmployeesAfterIt() {
+        //When
+        List<Employee> page = employeeRepository.findPageAfter(employee.getId(), PageRequest.of(0, 10));
+
+        //Then
+        Assertions.assertThat(page).containsExactly(employee1);
+
+    }
+
+    @Test
+    @DisplayName("Test projected keyset page selects only the requested fields and the id")
+    public void givenFields_whenFetchingProjectedPage_thenReturingOnlyThoseFields() {
+        //When
+        List<EmployeeProjection> page = employeeRepository.findProjectedPageAfter(EnumSet.of(EmployeeField.EMAIL), 0L, 10);
+
+        //Then
+        Assertions.assertThat(page).extracting(EmployeeProjection::getId).containsExactly(employee.getId(), employee1.getId());
+        Assertions.assertThat(page).extracting(projection -> projection.get(EmployeeField.EMAIL))
+                .containsExactly("jitendra.birla@gmail.com", "jitendra@gmail.com");
+        Assertions.assertThat(page.get(0).get(EmployeeField.FIRST_NAME)).isNull();
+
+    }
+
+    @Test
+    @DisplayName("Test the table stamp changes with every insert, versioned update and delete")
+    public void givenWrites_whenFetchingTableStamp_thenStampChanges() {
+        //given
+        List<List<Long>> stamps = new ArrayList<>();
+        Runnable stamp = () -> {
+            EmployeeTableStamp tableStamp = employeeRepository.findTableStamp();
+            stamps.add(List.of(tableStamp.getRowCount(), tableStamp.getMaxId(), tableStamp.getIdSum(), tableStamp.getVersionSum()));
+        };
+
+        //When
+        stamp.run();
+        employeeRepository.save(Employee.builder().firstName("Jitu").lastName("B").email("jitu@gmail.com").build());
+        stamp.run();
+        employeeRepository.patch(employee.getId(), employee.getVersion(), null, "Karode", null);
+        stamp.run();
+        employeeRepository.deleteByIds(List.of(employee1.getId()));
+        stamp.run();
+
+        //Then
+        Assertions.assertThat(stamps.get(0)).containsExactly(2L, employee1.getId(), employee.getId() + employee1.getId(), 0L);
+        Assertions.assertThat(stamps).doesNotHaveDuplicates();
+    }
+
+    @Test
+    @DisplayName("Test the table stamp changes when a row below the highest id is deleted and one with a lower id inserted")
+    public void givenDeleteAndInsertBelowMaxId_whenFetchingTableStamp_thenStampChanges() {
+        //given
+        insert(1000L, "highest@gmail.com");
+        String before = employeeRepository.findTableStamp().toTag();
+
+        //When
+        employeeRepository.deleteByIds(List.of(employee1.getId()));
+        //an id another instance took from its block of the pooled sequence
+        insert(500L, "other.instance@gmail.com");
+
+        //Then
+        EmployeeTableStamp after = employeeRepository.findTableStamp();
+        Assertions.assertThat(after.getRowCount()).isEqualTo(3L);
+        Assertions.assertThat(after.getMaxId()).isEqualTo(1000L);
+        Assertions.assertThat(after.toTag()).isNotEqualTo(before);
+    }
+
+    private void insert(long id, String email) {
+        entityManager.getEntityManager()
+                .createNativeQuery("insert into employees (id, fisrt_name, last_name, email, version) values (?, 'Jitu', 'Birla', ?, 0)")
+                .setParameter(1, id).setParameter(2, email).executeUpdate();
+    }
+
+    @Test
+    @DisplayName("Test the table stamp counted over the rows read is the one the aggregate query returns")
+    public void givenEmployees_whenStampingRowsRead_thenSameTagAsTableStamp() {
+        //given
+        employee.setLastName("Karode");
+        employeeRepository.saveAndFlush(employee);
+
+        //When
+        String rowsTag = EmployeeTableStamp.of(employeeRepository.findAll(), Employee::getId, Employee::getVersion).toTag();
+        String projectedTag = EmployeeTableStamp.of(employeeRepository.findProjected(EnumSet.of(EmployeeField.EMAIL)),
+                EmployeeProjection::getId, EmployeeProjection::getVersion).toTag();
+
+        //Then
+        Assertions.assertThat(rowsTag).isEqualTo(employeeRepository.findTableStamp().toTag());
+        Assertions.assertThat(projectedTag).isEqualTo(rowsTag);
+    }
+
 }
@@ -0,0 +1,123 @@
+package com.jd.springboot.search;
+
+import com.jd.springboot.exception.SearchIndexLoading;
+import com.jd.springboot.model.Employee;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class EmployeeSearchIndexTests {
+
+    private EmployeeSearchIndex employeeSearchIndex;
+
+    @BeforeEach
+    void setup() {
+        employeeSearchIndex = new EmployeeSearchIndex(0.3);
+        employeeSearchIndex.put(Employee.builder().id(1L).firstName("Jitendra").lastName("Birla").email("jitendra.birla@gmail.com").build());
+        employeeSearchIndex.put(Employee.builder().id(2L).firstName("Jitu").lastName("Karode").email("jitu@yahoo.com").build());
+        employeeSearchIndex.put(Employee.builder().id(3L).firstName("Ramesh").lastName("Birla").email("ramesh@gmail.com").build());
+    }
+
+    @Test
+    @DisplayName("Test prefix search on names and email parts")
+    public void givenPrefix_whenSearch_thenReturnEveryEmployeeWithAMatchingToken() {
+        Assertions.assertThat(employeeSearchIndex.search("ji", 10)).extracting(Employee::getId).containsExactly(1L, 2L);
+        Assertions.assertThat(employeeSearchIndex.search("yah", 10)).extracting(Employee::getId).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Test an exact token ranks before a prefix match")
+    public void givenExactToken_whenSearch_thenItRanksFirst() {
+        employeeSearchIndex.put(Employee.builder().id(4L).firstName("Birlani").lastName("Shah").email("shah@gmail.com").build());
+
+        Assertions.assertThat(employeeSearchIndex.search("birla", 10)).extracting(Employee::getId).containsExactly(1L, 3L, 4L);
+    }
+
+    @Test
+    @DisplayName("Test a misspelled term still finds the employee")
+    public void givenTypo_whenSearch_thenReturnSimilarEmployee() {
+        Assertions.assertThat(employeeSearchIndex.search("jitnedra", 10)).extracting(Employee::getId).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Test a misspelled term still finds the employee when its common trigrams are shared by more tokens than the candidate cap")
+    public void givenManyTokensSharingTrigrams_whenSearchTypo_thenReturnSimilarEmployee() {
+        for (long id = 10; id < 20010; id++) {
+            employeeSearchIndex.put(Employee.builder().id(id).firstName("Ji" + id).lastName("Shah").email("shah" + id + "@gmail.com").build());
+        }
+
+        Assertions.assertThat(employeeSearchIndex.search("jitnedra", 10)).extracting(Employee::getId).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Test every term of the query has to match")
+    public void givenTwoTerms_whenSearch_thenReturnEmployeesMatchingBoth() {
+        Assertions.assertThat(employeeSearchIndex.search("birla ram", 10)).extracting(Employee::getId).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Test updates, partial updates and deletes are applied incrementally")
+    public void givenWrites_whenSearch_thenIndexFollows() {
+        //When
+        employeeSearchIndex.put(Employee.builder().id(2L).firstName("Jitu").lastName("Sharma").email("jitu@yahoo.com").version(1L).build());
+        employeeSearchIndex.patch(3L, 1L, "Suresh", null, null);
+        employeeSearchIndex.remove(1L);
+
+        //Then
+        Assertions.assertThat(employeeSearchIndex.search("karode", 10)).isEmpty();
+        Assertions.assertThat(employeeSearchIndex.search("sharma", 10)).extracting(Employee::getId).containsExactly(2L);
+        Assertions.assertThat(employeeSearchIndex.search("suresh birla", 10)).extracting(Employee::getId).containsExactly(3L);
+        Assertions.assertThat(employeeSearchIndex.search("jitendra", 10)).isEmpty();
+        Assertions.assertThat(employeeSearchIndex.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Test an older version doesn't overwrite a newer one")
+    public void givenOlderVersion_whenPut_thenIgnored() {
+        //When
+        employeeSearchIndex.patch(2L, 1L, null, "Sharma", null);
+        employeeSearchIndex.put(Employee.builder().id(2L).firstName("Jitu").lastName("Karode").email("jitu@yahoo.com").version(0L).build());
+
+        //Then
+        List<Employee> employees = employeeSearchIndex.search("jitu", 10);
+        Assertions.assertThat(employees).extracting(Employee::getLastName).containsExactly("Sharma");
+    }
+
+    @Test
+    @DisplayName("Test bulk deletes and set based renames are mirrored")
+    public void givenBulkDeleteAndRename_whenSearch_thenIndexFollows() {
+        //When
+        employeeSearchIndex.removeAll(List.of(1L, 3L));
+        employeeSearchIndex.renameLastName(List.of(2L, 3L), "karode", "Sharma");
+
+        //Then
+        Assertions.assertThat(employeeSearchIndex.search("birla", 10)).isEmpty();
+        Assertions.assertThat(employeeSearchIndex.search("sharma", 10)).extracting(Employee::getId).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Test a load while serving refuses search, keeps deletes and hands back the ids written meanwhile")
+    public void givenLoadWhileServing_whenWritesRace_thenDeletesStayAndWrittenIdsAreReturned() {
+        //given
+        employeeSearchIndex.startLoading();
+        Employee jitu = Employee.builder().id(2L).firstName("Jitu").lastName("Karode").email("jitu@yahoo.com").build();
+
+        //When
+        employeeSearchIndex.remove(1L);
+        employeeSearchIndex.patch(2L, 1L, null, "Sharma", null);
+        //rows the load read before the delete and the patch
+        employeeSearchIndex.load(Employee.builder().id(1L).firstName("Jitendra").lastName("Birla").email("jitendra.birla@gmail.com").build());
+        employeeSearchIndex.load(jitu);
+
+        //Then
+        Assertions.assertThatThrownBy(() -> employeeSearchIndex.search("jitu", 10)).isInstanceOf(SearchIndexLoading.class);
+        Assertions.assertThat(employeeSearchIndex.finishLoading()).isFalse();
+        Assertions.assertThat(employeeSearchIndex.takeWrittenWhileLoading()).containsExactly(2L);
+        employeeSearchIndex.load(jitu.toBuilder().lastName("Sharma").version(1L).build());
+        Assertions.assertThat(employeeSearchIndex.finishLoading()).isTrue();
+        Assertions.assertThat(employeeSearchIndex.search("jit", 10)).extracting(Employee::getLastName).containsExactly("Sharma");
+    }
+
+}
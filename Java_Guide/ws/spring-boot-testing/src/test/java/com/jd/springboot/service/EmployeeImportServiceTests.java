@@ -0,0 +1,149 @@
+package com.jd.springboot.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jd.springboot.exception.EmployeeAlreadyExists;
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeBulkResult;
+import com.jd.springboot.model.EmployeeImportReport;
+import com.jd.springboot.services.EmployeeImportService;
+import com.jd.springboot.services.EmployeeService;
+import com.jd.springboot.services.Impl.EmployeeImportServiceImpl;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeImportServiceTests {
+
+    @Mock
+    EmployeeService employeeService;
+
+    private EmployeeImportServiceImpl employeeImportService;
+
+    @BeforeEach
+    public void setup() {
+        employeeImportService = new EmployeeImportServiceImpl(employeeService, new ObjectMapper(), 2, 1, 10);
+    }
+
+    @Test
+    @DisplayName("Test ndjson import commits one transaction per chunk")
+    public void givenNdjsonUpload_whenImportEmployees_thenSavingChunkByChunk() throws Exception {
+        //given
+        List<Integer> chunkSizes = new ArrayList<>();
+        BDDMockito.given(employeeService.saveAll(ArgumentMatchers.anyList())).willAnswer(invocation -> {
+            List<Employee> chunk = invocation.getArgument(0);
+            chunkSizes.add(chunk.size());
+            return created(chunk);
+        });
+        String upload = "{\"firstName\":\"Jitu\",\"lastName\":\"Birla\",\"email\":\"jitu@gmail.com\"}\n"
+                + "{\"firstName\":\"Jitu1\",\"lastName\":\"Birla1\",\"email\":\"jitu1@gmail.com\"}\n"
+                + "not json\n"
+                + "{\"firstName\":\"Jitu2\",\"lastName\":\"Birla2\",\"email\":\"jitu2@gmail.com\"}\n";
+
+        //When
+        EmployeeImportReport report = employeeImportService.importEmployees(toStream(upload), EmployeeImportService.Format.NDJSON);
+
+        //Then
+        Assertions.assertThat(chunkSizes).containsExactly(2, 1);
+        Assertions.assertThat(report.getProcessed()).isEqualTo(4);
+        Assertions.assertThat(report.getImported()).isEqualTo(3);
+        Assertions.assertThat(report.getRejectedRows()).extracting(EmployeeImportReport.RejectedRow::getLine).containsExactly(3L);
+        Assertions.assertThat(report.getChunksCommitted()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Test ndjson lines that aren't json objects are rejected as unparseable rows")
+    public void givenNonObjectNdjsonLines_whenImportEmployees_thenRejected() throws Exception {
+        //given
+        BDDMockito.given(employeeService.saveAll(ArgumentMatchers.anyList())).willAnswer(invocation -> created(invocation.getArgument(0)));
+        String upload = "null\n"
+                + "[]\n"
+                + "42\n"
+                + "{\"firstName\":\"Jitu\",\"lastName\":\"Birla\",\"email\":\"jitu@gmail.com\"}\n";
+
+        //When
+        EmployeeImportReport report = employeeImportService.importEmployees(toStream(upload), EmployeeImportService.Format.NDJSON);
+
+        //Then
+        Assertions.assertThat(report.getImported()).isEqualTo(1);
+        Assertions.assertThat(report.getRejectedRows()).extracting(EmployeeImportReport.RejectedRow::getLine).containsExactly(1L, 2L, 3L);
+        Assertions.assertThat(report.getRejectedRows()).allSatisfy(row -> Assertions.assertThat(row.getReason()).startsWith("Unparseable row"));
+    }
+
+    @Test
+    @DisplayName("Test csv import reports duplicates and rolled back chunks with their line numbers")
+    public void givenCsvUpload_whenImportEmployees_thenReportingRejectedLines() throws Exception {
+        //given
+        BDDMockito.given(employeeService.saveAll(ArgumentMatchers.anyList()))
+                .willAnswer(invocation -> {
+                    List<Employee> chunk = invocation.getArgument(0);
+                    List<EmployeeBulkResult> results = created(chunk);
+                    results.get(1).setStatus(EmployeeBulkResult.Status.DUPLICATE);
+                    return results;
+                })
+                .willThrow(new EmployeeAlreadyExists("registered concurrently"));
+        String upload = "email,firstName,lastName\n"
+                + "jitu@gmail.com,Jitu,Birla\n"
+                + "jitu@gmail.com,Jitu,Birla\n"
+                + "jitu2@gmail.com,Jitu2,Birla2\n";
+
+        //When
+        EmployeeImportReport report = employeeImportService.importEmployees(toStream(upload), EmployeeImportService.Format.CSV);
+
+        //Then
+        Assertions.assertThat(report.getImported()).isEqualTo(1);
+        Assertions.assertThat(report.getRejected()).isEqualTo(2);
+        Assertions.assertThat(report.getRejectedRows()).extracting(EmployeeImportReport.RejectedRow::getLine).containsExactly(3L, 4L);
+        BDDMockito.verify(employeeService, Mockito.times(2)).saveAll(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    @DisplayName("Test a chunk rolled back by a concurrent duplicate is retried row by row")
+    public void givenConcurrentDuplicateInChunk_whenImportEmployees_thenOnlyDuplicateRejected() throws Exception {
+        //given
+        BDDMockito.given(employeeService.saveAll(ArgumentMatchers.anyList())).willAnswer(invocation -> {
+            List<Employee> chunk = invocation.getArgument(0);
+            if (chunk.stream().anyMatch(employee -> employee.getEmail().equals("taken@gmail.com"))) {
+                throw new EmployeeAlreadyExists("registered concurrently");
+            }
+            return created(chunk);
+        });
+        String upload = "email,firstName,lastName\n"
+                + "jitu@gmail.com,Jitu,Birla\n"
+                + "taken@gmail.com,Jitu1,Birla1\n";
+
+        //When
+        EmployeeImportReport report = employeeImportService.importEmployees(toStream(upload), EmployeeImportService.Format.CSV);
+
+        //Then
+        Assertions.assertThat(report.getImported()).isEqualTo(1);
+        Assertions.assertThat(report.getRejectedRows()).extracting(EmployeeImportReport.RejectedRow::getLine).containsExactly(3L);
+        Assertions.assertThat(report.getChunksCommitted()).isEqualTo(1);
+        BDDMockito.verify(employeeService, Mockito.times(3)).saveAll(ArgumentMatchers.anyList());
+    }
+
+    private static List<EmployeeBulkResult> created(List<Employee> chunk) {
+        List<EmployeeBulkResult> results = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            results.add(EmployeeBulkResult.builder().index(i).id((long) i + 1).email(chunk.get(i).getEmail())
+                    .status(EmployeeBulkResult.Status.CREATED).build());
+        }
+        return results;
+    }
+
+    private static ByteArrayInputStream toStream(String upload) {
+        return new ByteArrayInputStream(upload.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
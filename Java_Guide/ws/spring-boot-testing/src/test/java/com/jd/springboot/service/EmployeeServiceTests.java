@@ -2,22 +2,54 @@ package com.jd.springboot.service;
 
 import static org.mockito.ArgumentMatchers.any;
 
+import com.jd.springboot.cache.EmployeeCache;
+import com.jd.springboot.cache.EmployeeLookups;
+import com.jd.springboot.changes.EmployeeChangeLog;
+import com.jd.springboot.exception.EmployeeAlreadyExists;
 import com.jd.springboot.exception.ResurceNotFound;
 import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeBulkResult;
+import com.jd.springboot.model.EmployeeChange;
+import com.jd.springboot.model.EmployeeChanges;
+import com.jd.springboot.model.EmployeeField;
+import com.jd.springboot.model.EmployeeMultiGetResult;
+import com.jd.springboot.model.EmployeePatch;
+import com.jd.springboot.model.EmployeeProjection;
 import com.jd.springboot.repository.EmployeeRepository;
+import com.jd.springboot.search.EmployeeSearchIndex;
 import com.jd.springboot.services.Impl.EmployeeServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
 import org.assertj.core.api.Assertions;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 
 /**
@@ -28,6 +60,16 @@ public class EmployeeServiceTests {
 
     @Mock
     EmployeeRepository employeeRepository;
+    @Mock
+    EntityManager entityManager;
+    @Spy
+    EmployeeCache employeeCache = new EmployeeCache(100, Duration.ofMinutes(10), Duration.ofSeconds(30));
+    @Spy
+    EmployeeSearchIndex employeeSearchIndex = new EmployeeSearchIndex(0.3);
+    @Spy
+    EmployeeChangeLog employeeChangeLog = new EmployeeChangeLog(1000);
+    @Spy
+    EmployeeLookups employeeLookups = new EmployeeLookups(new SimpleMeterRegistry());
     @InjectMocks
     EmployeeServiceImpl employeeService;
     private Employee e;
@@ -46,8 +88,7 @@ public class EmployeeServiceTests {
     @DisplayName("Test save employee using serviceimpl")
     public void givenEmployee_whenSaveEmployee_thenEmployeeObject() {
         //given
-        BDDMockito.given(employeeRepository.findByEmail(e.getEmail())).willReturn(Optional.empty());
-        BDDMockito.given(employeeService.saveEmployee(e)).willReturn(e);
+        BDDMockito.given(employeeRepository.saveAndFlush(e)).willReturn(e);
 
         //When
         Employee savedEmp = employeeService.saveEmployee(e);
@@ -57,20 +98,20 @@ public class EmployeeServiceTests {
     }
 
     @Test
-    @DisplayName("Test by given existing email and returning resurce not found exception")
-    public void givenExistingEmail_whenSaveEmployee_thenThrowRSNF() {
+    @DisplayName("Test by given existing email and returning employee already exists")
+    public void givenExistingEmail_whenSaveEmployee_thenThrowEmployeeAlreadyExists() {
         //given
-        BDDMockito.given(employeeRepository.findByEmail(e.getEmail())).willReturn(Optional.of(e));
-        //BDDMockito.given(employeeService.saveEmployee(e)).willReturn(e);
+        BDDMockito.given(employeeRepository.saveAndFlush(e)).willThrow(new DataIntegrityViolationException("duplicate",
+                new ConstraintViolationException("Duplicate entry", new SQLException(), Employee.EMAIL_UNIQUE_CONSTRAINT)));
 
         //When
-
-        org.junit.jupiter.api.Assertions.assertThrows(ResurceNotFound.class, () -> {
+        EmployeeAlreadyExists exception = org.junit.jupiter.api.Assertions.assertThrows(EmployeeAlreadyExists.class, () -> {
             employeeService.saveEmployee(e);
         });
 
         //Then
-        BDDMockito.verify(employeeRepository, Mockito.never()).save(any(Employee.class));
+        Assertions.assertThat(exception.getStackTrace()).isEmpty();
+        BDDMockito.verify(employeeRepository, Mockito.never()).findByEmail(any(String.class));
 
     }
 
@@ -94,6 +135,8 @@ public class EmployeeServiceTests {
     public void givenEmployee_whenUpdateEmployee_thenReturningEmployee() {
         //given
         BDDMockito.given(employeeRepository.save(e)).willReturn(e);
+        BDDMockito.given(employeeRepository.findById(1L)).willReturn(Optional.of(e));
+        employeeService.getEmployeeById(1L);
         e.setFirstName("shivam");
         e.setLastName("karode");
         //When
@@ -101,6 +144,8 @@ public class EmployeeServiceTests {
         //Then
         Assertions.assertThat(employee).isNotNull();
         Assertions.assertThat(employee.getFirstName()).isEqualTo("shivam");
+        Assertions.assertThat(employeeService.getEmployeeById(1L).get().getFirstName()).isEqualTo("shivam");
+        BDDMockito.verify(employeeRepository, Mockito.times(2)).findById(1L);
 
     }
 
@@ -109,12 +154,382 @@ public class EmployeeServiceTests {
     public void givenEmployeeId_whenDeleteEmployee_thenReturningNOting() {
         long employeeid = 1L;
         //given
-        BDDMockito.willDoNothing().given(employeeRepository).deleteById(employeeid);
+        BDDMockito.given(employeeRepository.deleteByIds(List.of(employeeid))).willReturn(1);
         //When
          employeeService.deleteEmployee(employeeid);
         //Then
-      BDDMockito.verify(employeeRepository,Mockito.times(1)).deleteById(employeeid);
+      BDDMockito.verify(employeeRepository,Mockito.times(1)).deleteByIds(List.of(employeeid));
+      BDDMockito.verify(employeeRepository,Mockito.never()).findById(employeeid);
+
+    }
+
+    @Test
+    @DisplayName("Test keyset page of employees")
+    public void givenAfterIdAndLimit_whenFindPage_thenReturningEmployeePage() {
+        //given
+        BDDMockito.given(employeeRepository.findPageAfter(1L, PageRequest.of(0, 10))).willReturn(List.of(employee1));
+
+        //When
+        List<Employee> page = employeeService.findPage(1L, 10);
+        //Then
+        Assertions.assertThat(page).containsExactly(employee1);
+    }
+
+    @Test
+    @DisplayName("Test streaming all employees detaches every row")
+    public void givenEmployeeStream_whenStreamAll_thenConsumingAndDetachingEveryEmployee() {
+        //given
+        BDDMockito.given(employeeRepository.streamAllOrderById()).willReturn(Stream.of(e, employee1));
+        List<Employee> consumed = new ArrayList<>();
+
+        //When
+        employeeService.streamAll(consumed::add);
+        //Then
+        Assertions.assertThat(consumed).containsExactly(e, employee1);
+        BDDMockito.verify(entityManager).detach(e);
+        BDDMockito.verify(entityManager).detach(employee1);
+    }
+
+    @Test
+    @DisplayName("Test bulk save reports created, duplicate and invalid rows")
+    public void givenEmployeeBatch_whenSaveAll_thenReturningResultPerRow() {
+        //given
+        Employee fresh = Employee.builder().firstName("Shivam").lastName("Karode").email("shivam@gmail.com").build();
+        Employee sameEmailTwice = Employee.builder().firstName("Shivam").lastName("K").email("shivam@gmail.com").build();
+        Employee noEmail = Employee.builder().firstName("No").lastName("Email").build();
+        BDDMockito.given(employeeRepository.findExistingEmails(ArgumentMatchers.anyCollection())).willReturn(Set.of(e.getEmail()));
+        BDDMockito.given(employeeRepository.saveAll(List.of(fresh))).willAnswer(invocation -> {
+            fresh.setId(10L);
+            return List.of(fresh);
+        });
+
+        //When
+        List<EmployeeBulkResult> results = employeeService.saveAll(List.of(e, fresh, sameEmailTwice, noEmail));
+        //Then
+        Assertions.assertThat(results).extracting(EmployeeBulkResult::getStatus).containsExactly(
+                EmployeeBulkResult.Status.DUPLICATE, EmployeeBulkResult.Status.CREATED,
+                EmployeeBulkResult.Status.DUPLICATE, EmployeeBulkResult.Status.INVALID);
+        Assertions.assertThat(results.get(1).getId()).isEqualTo(10L);
+        BDDMockito.verify(employeeRepository, Mockito.times(1)).findExistingEmails(ArgumentMatchers.anyCollection());
+        BDDMockito.verify(entityManager).flush();
+    }
+
+    @Test
+    @DisplayName("Test repeated get employee by id is served from the cache")
+    public void givenCachedEmployee_whenGetEmployeeById_thenRepositoryIsHitOnce() {
+        //given
+        BDDMockito.given(employeeRepository.findById(1L)).willReturn(Optional.of(e));
+
+        //When
+        Employee first = employeeService.getEmployeeById(1L).get();
+        first.setFirstName("changed by caller");
+        Employee second = employeeService.getEmployeeById(1L).get();
+        //Then
+        Assertions.assertThat(second.getFirstName()).isEqualTo("Jitu");
+        BDDMockito.verify(employeeRepository, Mockito.times(1)).findById(1L);
+        Assertions.assertThat(employeeService.getCacheStats().getHitCount()).isEqualTo(1);
+        Assertions.assertThat(employeeService.getCacheStats().getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Test a version conflict on update evicts the cached employee, the next read sees the current row")
+    public void givenStaleCachedEmployee_whenUpdateEmployee_thenConflictEvictsCache() {
+        //given
+        BDDMockito.given(employeeRepository.findById(1L)).willReturn(Optional.of(e));
+        Employee stale = employeeService.getEmployeeById(1L).get();
+        Employee current = e.toBuilder().lastName("Karode").version(e.getVersion() + 1).build();
+        BDDMockito.given(employeeRepository.save(stale)).willThrow(new OptimisticLockingFailureException("modified elsewhere"));
+
+        //When
+        Assertions.assertThatThrownBy(() -> employeeService.updateEmployee(stale))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        BDDMockito.given(employeeRepository.findById(1L)).willReturn(Optional.of(current));
+
+        //Then
+        Assertions.assertThat(employeeService.getEmployeeById(1L)).get().isEqualTo(current);
+        BDDMockito.verify(employeeChangeLog, Mockito.never()).updated(ArgumentMatchers.any(Employee.class));
+    }
+
+    @Test
+    @DisplayName("Test employees looked up by email are copies, and a write forgets the lookups in flight of its old and new email")
+    public void givenEmail_whenGetEmployeeByEmail_thenReturnCopy() {
+        //given
+        BDDMockito.given(employeeRepository.findByEmail("jdbirla@gmail.com")).willReturn(Optional.of(e));
+        employeeSearchIndex.put(e);
+        Employee updated = e.toBuilder().email("jitu@gmail.com").build();
+        BDDMockito.given(employeeRepository.save(updated)).willReturn(updated);
+
+        //When
+        Employee found = employeeService.getEmployeeByEmail("jdbirla@gmail.com").get();
+        employeeService.updateEmployee(updated);
+
+        //Then
+        Assertions.assertThat(found).isEqualTo(e).isNotSameAs(e);
+        BDDMockito.verify(employeeLookups).forgetInFlight(List.of("jdbirla@gmail.com"));
+        BDDMockito.verify(employeeLookups).forgetInFlight(List.of("jitu@gmail.com"));
+        BDDMockito.verify(employeeLookups, Mockito.never()).forgetAllInFlight();
+    }
+
+    @Test
+    @DisplayName("Test a multi-get reads cached employees from the cache and the rest with one query, in the requested order")
+    public void givenIdList_whenGetEmployeesByIds_thenCacheFirstAndRequestedOrder() {
+        //given
+        BDDMockito.given(employeeRepository.findById(1L)).willReturn(Optional.of(e));
+        employeeService.getEmployeeById(1L);
+        BDDMockito.given(employeeRepository.findAllById(ArgumentMatchers.<Iterable<Long>>argThat(ids ->
+                        Set.copyOf((List<Long>) ids).equals(Set.of(2L, 3L)))))
+                .willReturn(List.of(employee1));
+
+        //When
+        EmployeeMultiGetResult result = employeeService.getEmployeesByIds(List.of(3L, 2L, 1L, 2L));
+        EmployeeMultiGetResult cached = employeeService.getEmployeesByIds(List.of(2L, 3L));
+
+        //Then
+        Assertions.assertThat(result.getEmployees()).extracting(Employee::getId).containsExactly(2L, 1L);
+        Assertions.assertThat(result.getMissing()).containsExactly(3L);
+        Assertions.assertThat(cached.getEmployees()).extracting(Employee::getId).containsExactly(2L);
+        Assertions.assertThat(cached.getMissing()).containsExactly(3L);
+        BDDMockito.verify(employeeRepository, Mockito.times(1)).findAllById(ArgumentMatchers.any());
+        BDDMockito.verify(employeeRepository, Mockito.times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Test unknown id is cached as not found until the employee is deleted or created")
+    public void givenUnknownId_whenGetEmployeeById_thenNotFoundIsCached() {
+        //given
+        BDDMockito.given(employeeRepository.findById(3L)).willReturn(Optional.empty());
+
+        //When
+        employeeService.getEmployeeById(3L);
+        Optional<Employee> employee = employeeService.getEmployeeById(3L);
+        employeeService.deleteEmployee(3L);
+        employeeService.getEmployeeById(3L);
+        //Then
+        Assertions.assertThat(employee).isEmpty();
+        BDDMockito.verify(employeeRepository, Mockito.times(2)).findById(3L);
+    }
+
+    @Test
+    @DisplayName("Test saved, patched and deleted employees are reflected by the search")
+    public void givenSavedEmployee_whenPatchedAndDeleted_thenSearchFollows() {
+        //given
+        BDDMockito.given(employeeRepository.saveAndFlush(e)).willReturn(e);
+        BDDMockito.given(employeeRepository.patch(1L, 0L, null, "Karode", null)).willReturn(1);
+
+        //When
+        employeeService.saveEmployee(e);
+        List<Employee> beforePatch = employeeService.searchEmployees("bir", 10);
+        employeeService.patchEmployee(1L, 0L, EmployeePatch.builder().lastName("Karode").build());
+        List<Employee> afterPatch = employeeService.searchEmployees("karod", 10);
+        employeeService.deleteEmployee(1L);
+
+        //Then
+        Assertions.assertThat(beforePatch).extracting(Employee::getId).containsExactly(1L);
+        Assertions.assertThat(afterPatch).extracting(Employee::getLastName).containsExactly("Karode");
+        Assertions.assertThat(employeeService.searchEmployees("jitu", 10)).isEmpty();
+        BDDMockito.verify(employeeRepository, Mockito.never()).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Test projected get by id is served from the cached employee")
+    public void givenFields_whenGetEmployeeById_thenProjectCachedEmployee() {
+        //given
+        BDDMockito.given(employeeRepository.findById(1L)).willReturn(Optional.of(e));
+
+        //When
+        employeeService.getEmployeeById(1L);
+        Optional<EmployeeProjection> projection = employeeService.getEmployeeById(1L, EnumSet.of(EmployeeField.EMAIL));
+
+        //Then
+        Assertions.assertThat(projection).isPresent();
+        Assertions.assertThat(projection.get().get(EmployeeField.EMAIL)).isEqualTo("jdbirla@gmail.com");
+        Assertions.assertThat(projection.get().getFields()).containsExactly(EmployeeField.EMAIL);
+        BDDMockito.verify(employeeRepository, Mockito.times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Test the change stamp moves with every write but not with reads")
+    public void givenWrites_whenGetChangeStamp_thenStampChanges() {
+        //given
+        BDDMockito.given(employeeRepository.saveAndFlush(e)).willReturn(e);
+        BDDMockito.given(employeeRepository.findAll()).willReturn(List.of(e));
+        BDDMockito.given(employeeRepository.deleteByIds(List.of(1L))).willReturn(1);
+        String initial = employeeService.getChangeStamp();
+
+        //When
+        employeeService.findAll();
+        String afterRead = employeeService.getChangeStamp();
+        employeeService.saveEmployee(e);
+        String afterSave = employeeService.getChangeStamp();
+        employeeService.deleteEmployee(1L);
+
+        //Then
+        Assertions.assertThat(afterRead).isEqualTo(initial);
+        Assertions.assertThat(afterSave).isNotEqualTo(initial);
+        Assertions.assertThat(employeeService.getChangeStamp()).isNotEqualTo(afterSave);
+    }
+
+    @Test
+    @DisplayName("Test patch employee with the current version")
+    public void givenCurrentVersion_whenPatchEmployee_thenReturningNextVersion() {
+        //given
+        EmployeePatch patch = EmployeePatch.builder().lastName("karode").build();
+        BDDMockito.given(employeeRepository.patch(1L, 3L, null, "karode", null)).willReturn(1);
+
+        //When
+        long version = employeeService.patchEmployee(1L, 3L, patch);
+        //Then
+        Assertions.assertThat(version).isEqualTo(4L);
+        BDDMockito.verify(employeeRepository, Mockito.never()).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Test an employee read while its patch isn't committed yet is dropped from the cache on commit")
+    public void givenReadBeforeCommit_whenPatchCommitted_thenCachedEmployeeInvalidated() {
+        //given
+        EmployeePatch patch = EmployeePatch.builder().lastName("karode").build();
+        BDDMockito.given(employeeRepository.patch(1L, 0L, null, "karode", null)).willReturn(1);
+        BDDMockito.given(employeeRepository.findById(1L)).willReturn(Optional.of(e));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            employeeService.patchEmployee(1L, 0L, patch);
+            employeeService.getEmployeeById(1L);
+
+            //When
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        employeeService.getEmployeeById(1L);
+
+        //Then
+        BDDMockito.verify(employeeRepository, Mockito.times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Test patch employee with a stale version or an unknown id")
+    public void givenStaleVersionOrUnknownId_whenPatchEmployee_thenThrowing() {
+        //given
+        EmployeePatch patch = EmployeePatch.builder().lastName("karode").build();
+        BDDMockito.given(employeeRepository.patch(ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong(),
+                ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any())).willReturn(0);
+        BDDMockito.given(employeeRepository.existsById(1L)).willReturn(true);
+        BDDMockito.given(employeeRepository.existsById(2L)).willReturn(false);
+
+        //Then
+        org.junit.jupiter.api.Assertions.assertThrows(OptimisticLockingFailureException.class,
+                () -> employeeService.patchEmployee(1L, 3L, patch));
+        org.junit.jupiter.api.Assertions.assertThrows(ResurceNotFound.class,
+                () -> employeeService.patchEmployee(2L, 3L, patch));
+    }
+
+    @Test
+    @DisplayName("Test bulk delete by ids invalidates the cached employees")
+    public void givenIds_whenDeleteEmployees_thenReturningDeletedCount() {
+        //given
+        BDDMockito.given(employeeRepository.findById(1L)).willReturn(Optional.of(e), Optional.empty());
+        BDDMockito.given(employeeRepository.findExistingIds(List.of(1L, 2L))).willReturn(List.of(1L, 2L));
+        BDDMockito.given(employeeRepository.deleteByIds(List.of(1L, 2L))).willReturn(2);
+        employeeService.getEmployeeById(1L);
+
+        //When
+        int deleted = employeeService.deleteEmployees(List.of(1L, 2L));
+        //Then
+        Assertions.assertThat(deleted).isEqualTo(2);
+        Assertions.assertThat(employeeService.getEmployeeById(1L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Test bulk delete by ids sends the ids in chunks of 1000")
+    public void givenManyIds_whenDeleteEmployees_thenOneDeletePerChunk() {
+        //given
+        List<Long> ids = LongStream.rangeClosed(1, 2500).boxed().collect(Collectors.toList());
+        BDDMockito.given(employeeRepository.findExistingIds(ArgumentMatchers.anyCollection()))
+                .willAnswer(invocation -> new ArrayList<>((Collection<Long>) invocation.getArgument(0)));
+        BDDMockito.given(employeeRepository.deleteByIds(ArgumentMatchers.anyCollection()))
+                .willAnswer(invocation -> ((Collection<?>) invocation.getArgument(0)).size());
+
+        //When
+        int deleted = employeeService.deleteEmployees(ids);
+
+        //Then
+        Assertions.assertThat(deleted).isEqualTo(2500);
+        BDDMockito.verify(employeeRepository).deleteByIds(ids.subList(0, 1000));
+        BDDMockito.verify(employeeRepository).deleteByIds(ids.subList(1000, 2000));
+        BDDMockito.verify(employeeRepository).deleteByIds(ids.subList(2000, 2500));
+    }
+
+    @Test
+    @DisplayName("Test bulk delete by ids logs only the employees that existed")
+    public void givenUnknownIds_whenDeleteEmployees_thenOnlyExistingIdsAreLogged() {
+        //given
+        BDDMockito.given(employeeRepository.findExistingIds(List.of(1L, 98L, 99L))).willReturn(List.of(1L));
+        BDDMockito.given(employeeRepository.deleteByIds(List.of(1L))).willReturn(1);
+        String since = employeeService.getChangeStamp();
+
+        //When
+        int deleted = employeeService.deleteEmployees(List.of(1L, 98L, 99L));
+        EmployeeChanges changes = employeeService.getChanges(since, 10);
+
+        //Then
+        Assertions.assertThat(deleted).isEqualTo(1);
+        Assertions.assertThat(changes.getChanges()).extracting(EmployeeChange::getType, EmployeeChange::getId)
+                .containsExactly(Assertions.tuple(EmployeeChange.Type.DELETED, 1L));
+        BDDMockito.verify(employeeRepository, Mockito.never()).deleteByIds(List.of(1L, 98L, 99L));
+    }
+
+    @Test
+    @DisplayName("Test bulk delete by email domain escapes like wildcards")
+    public void givenEmailDomain_whenDeleteEmployeesByEmailDomain_thenMatchingDomainSuffix() {
+        //given
+        BDDMockito.given(employeeRepository.findIdsByEmailLike("%@my!_domain.com")).willReturn(List.of(1L, 2L, 3L));
+        BDDMockito.given(employeeRepository.deleteByIds(List.of(1L, 2L, 3L))).willReturn(3);
+
+        //When
+        int deleted = employeeService.deleteEmployeesByEmailDomain("my_domain.com");
+        //Then
+        Assertions.assertThat(deleted).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Test the change feed names the employees of set based writes")
+    public void givenSetBasedWrites_whenGetChanges_thenOneChangePerEmployee() {
+        //given
+        BDDMockito.given(employeeRepository.findIdsByEmailLike("%@gmail.com")).willReturn(List.of(1L, 2L));
+        BDDMockito.given(employeeRepository.deleteByIds(List.of(1L, 2L))).willReturn(2);
+        BDDMockito.given(employeeRepository.findIdsByLastName("Karode")).willReturn(List.of(3L));
+        BDDMockito.given(employeeRepository.updateLastName(List.of(3L), "Karode", "Sharma")).willReturn(1);
+        String since = employeeService.getChangeStamp();
+
+        //When
+        employeeService.deleteEmployeesByEmailDomain("gmail.com");
+        employeeService.renameLastName("Karode", "Sharma");
+        EmployeeChanges changes = employeeService.getChanges(since, 10);
 
+        //Then
+        Assertions.assertThat(changes.getChanges()).extracting(EmployeeChange::getType, EmployeeChange::getId).containsExactly(
+                Assertions.tuple(EmployeeChange.Type.DELETED, 1L), Assertions.tuple(EmployeeChange.Type.DELETED, 2L),
+                Assertions.tuple(EmployeeChange.Type.UPDATED, 3L));
+        Assertions.assertThat(changes.getNextToken()).isEqualTo(employeeService.getChangeStamp());
+    }
+
+    @Test
+    @DisplayName("Test a long poll is answered by the next committed write")
+    public void givenNoChangeYet_whenAwaitChanges_thenCompletedByNextWrite() {
+        //given
+        BDDMockito.given(employeeRepository.saveAndFlush(e)).willReturn(e);
+        String since = employeeService.getChangeStamp();
+
+        //When
+        CompletableFuture<EmployeeChanges> pending = employeeService.awaitChanges(since, 10, Duration.ofSeconds(30));
+        Assertions.assertThat(pending).isNotDone();
+        employeeService.saveEmployee(e);
+
+        //Then
+        EmployeeChanges changes = pending.join();
+        Assertions.assertThat(changes.getChanges()).hasSize(1);
+        Assertions.assertThat(changes.getChanges().get(0).getType()).isEqualTo(EmployeeChange.Type.CREATED);
+        Assertions.assertThat(changes.getChanges().get(0).getEmployee().getEmail()).isEqualTo("jdbirla@gmail.com");
     }
 
 }
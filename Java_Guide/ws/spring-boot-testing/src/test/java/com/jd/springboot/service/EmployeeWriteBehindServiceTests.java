@@ -0,0 +1,215 @@
+package com.jd.springboot.service;
+
+import com.jd.springboot.exception.EmployeeAlreadyExists;
+import com.jd.springboot.exception.ResurceNotFound;
+import com.jd.springboot.exception.WriteBehindQueueFull;
+import com.jd.springboot.model.Employee;
+import com.jd.springboot.model.EmployeeBulkResult;
+import com.jd.springboot.model.EmployeeCreateAck;
+import com.jd.springboot.services.EmployeeService;
+import com.jd.springboot.services.Impl.EmployeeWriteBehindServiceImpl;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeWriteBehindServiceTests {
+
+    @Mock
+    EmployeeService employeeService;
+
+    private EmployeeWriteBehindServiceImpl writeBehindService;
+
+    @AfterEach
+    public void tearDown() {
+        if (writeBehindService.isRunning()) {
+            writeBehindService.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Test creates queued together are committed as one group")
+    public void givenQueuedCreates_whenFlushed_thenOneSaveAllPerGroup() throws Exception {
+        //given
+        List<Integer> groupSizes = new CopyOnWriteArrayList<>();
+        BDDMockito.given(employeeService.saveAll(ArgumentMatchers.anyList())).willAnswer(invocation -> {
+            List<Employee> group = invocation.getArgument(0);
+            groupSizes.add(group.size());
+            return created(group);
+        });
+        writeBehindService = new EmployeeWriteBehindServiceImpl(employeeService, 10, 3, Duration.ofSeconds(5), Duration.ofMinutes(1), 10000);
+        writeBehindService.start();
+
+        //When
+        List<EmployeeCreateAck> accepted = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            accepted.add(writeBehindService.submit(employee(i)));
+        }
+        EmployeeCreateAck ack = writeBehindService.awaitAck(accepted.get(2).getTicket(), Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS);
+
+        //Then
+        Assertions.assertThat(accepted).extracting(EmployeeCreateAck::getStatus).containsOnly(EmployeeCreateAck.Status.PENDING);
+        Assertions.assertThat(ack.getStatus()).isEqualTo(EmployeeCreateAck.Status.CREATED);
+        Assertions.assertThat(writeBehindService.getAck(accepted.get(0).getTicket()).getId()).isEqualTo(100L);
+        Assertions.assertThat(groupSizes).containsExactly(3);
+    }
+
+    @Test
+    @DisplayName("Test a group failure is retried create by create")
+    public void givenFailingGroup_whenFlushed_thenEachCreateGetsItsOwnOutcome() throws Exception {
+        //given
+        BDDMockito.given(employeeService.saveAll(ArgumentMatchers.anyList())).willAnswer(invocation -> {
+            List<Employee> group = invocation.getArgument(0);
+            if (group.size() > 1 || group.get(0).getEmail().equals("jitu1@gmail.com")) {
+                throw new EmployeeAlreadyExists("An email of the batch was registered concurrently, nothing was saved");
+            }
+            return created(group);
+        });
+        writeBehindService = new EmployeeWriteBehindServiceImpl(employeeService, 10, 2, Duration.ofSeconds(5), Duration.ofMinutes(1), 10000);
+        writeBehindService.start();
+
+        //When
+        EmployeeCreateAck first = writeBehindService.submit(employee(0));
+        EmployeeCreateAck second = writeBehindService.submit(employee(1));
+        EmployeeCreateAck secondAck = writeBehindService.awaitAck(second.getTicket(), Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS);
+
+        //Then
+        Assertions.assertThat(writeBehindService.getAck(first.getTicket()).getStatus()).isEqualTo(EmployeeCreateAck.Status.CREATED);
+        Assertions.assertThat(secondAck.getStatus()).isEqualTo(EmployeeCreateAck.Status.FAILED);
+    }
+
+    @Test
+    @DisplayName("Test a full queue rejects instead of blocking")
+    public void givenFullQueue_whenSubmit_thenWriteBehindQueueFull() throws Exception {
+        //given
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch flushing = new CountDownLatch(1);
+        BDDMockito.given(employeeService.saveAll(ArgumentMatchers.anyList())).willAnswer(invocation -> {
+            flushing.countDown();
+            release.await();
+            return created(invocation.getArgument(0));
+        });
+        writeBehindService = new EmployeeWriteBehindServiceImpl(employeeService, 1, 1, Duration.ofMillis(1), Duration.ofMinutes(1), 10000);
+        writeBehindService.start();
+
+        //When
+        writeBehindService.submit(employee(0));
+        flushing.await(5, TimeUnit.SECONDS);
+        writeBehindService.submit(employee(1));
+
+        //Then
+        Assertions.assertThatThrownBy(() -> writeBehindService.submit(employee(2))).isInstanceOf(WriteBehindQueueFull.class);
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Test stopping flushes the queued creates")
+    public void givenQueuedCreates_whenStopped_thenAllFlushed() {
+        //given
+        BDDMockito.given(employeeService.saveAll(ArgumentMatchers.anyList())).willAnswer(invocation -> created(invocation.getArgument(0)));
+        writeBehindService = new EmployeeWriteBehindServiceImpl(employeeService, 10, 5, Duration.ofMinutes(1), Duration.ofMinutes(1), 10000);
+        writeBehindService.start();
+        EmployeeCreateAck ack = writeBehindService.submit(employee(0));
+
+        //When
+        writeBehindService.stop();
+
+        //Then
+        Assertions.assertThat(writeBehindService.getAck(ack.getTicket()).getStatus()).isEqualTo(EmployeeCreateAck.Status.CREATED);
+        Assertions.assertThatThrownBy(() -> writeBehindService.submit(employee(1))).isInstanceOf(WriteBehindQueueFull.class);
+        Assertions.assertThatThrownBy(() -> writeBehindService.getAck(42L)).isInstanceOf(ResurceNotFound.class);
+    }
+
+    @Test
+    @DisplayName("Test an acknowledgement stays pollable for the retention counted from its flush")
+    public void givenFlushSlowerThanRetention_whenFlushed_thenAckStillPollable() throws Exception {
+        //given
+        CountDownLatch release = new CountDownLatch(1);
+        BDDMockito.given(employeeService.saveAll(ArgumentMatchers.anyList())).willAnswer(invocation -> {
+            release.await();
+            return created(invocation.getArgument(0));
+        });
+        writeBehindService = new EmployeeWriteBehindServiceImpl(employeeService, 10, 1, Duration.ofMillis(1), Duration.ofMillis(300), 10000);
+        writeBehindService.start();
+        EmployeeCreateAck accepted = writeBehindService.submit(employee(0));
+
+        //When
+        Thread.sleep(400);
+        release.countDown();
+
+        //Then
+        //gone until the flusher stores the final ack, expired for good without the new write
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        EmployeeCreateAck ack = null;
+        while (ack == null && System.nanoTime() < deadline) {
+            try {
+                ack = writeBehindService.getAck(accepted.getTicket());
+            } catch (ResurceNotFound e) {
+                Thread.sleep(5);
+            }
+        }
+        Assertions.assertThat(ack).isNotNull();
+        Assertions.assertThat(ack.getStatus()).isEqualTo(EmployeeCreateAck.Status.CREATED);
+    }
+
+    @Test
+    @DisplayName("Test no create accepted while stopping is left pending")
+    public void givenSubmitsRacingStop_whenStopped_thenEveryAcceptedCreateFlushed() throws Exception {
+        //given
+        BDDMockito.given(employeeService.saveAll(ArgumentMatchers.anyList())).willAnswer(invocation -> created(invocation.getArgument(0)));
+
+        for (int round = 0; round < 50; round++) {
+            writeBehindService = new EmployeeWriteBehindServiceImpl(employeeService, 1000, 10, Duration.ofMillis(1), Duration.ofMinutes(1), 10000);
+            writeBehindService.start();
+            List<EmployeeCreateAck> accepted = new CopyOnWriteArrayList<>();
+            CountDownLatch submitting = new CountDownLatch(1);
+            Thread submitter = new Thread(() -> {
+                submitting.countDown();
+                for (int i = 0; i < 1000; i++) {
+                    try {
+                        accepted.add(writeBehindService.submit(employee(i)));
+                    } catch (WriteBehindQueueFull e) {
+                        return;
+                    }
+                }
+            });
+
+            //When
+            submitter.start();
+            submitting.await(5, TimeUnit.SECONDS);
+            writeBehindService.stop();
+            submitter.join(5000);
+
+            //Then
+            for (EmployeeCreateAck ack : accepted) {
+                Assertions.assertThat(writeBehindService.getAck(ack.getTicket()).getStatus()).isEqualTo(EmployeeCreateAck.Status.CREATED);
+            }
+        }
+    }
+
+    private static Employee employee(int i) {
+        return Employee.builder().firstName("Jitu" + i).lastName("Birla").email("jitu" + i + "@gmail.com").build();
+    }
+
+    private static List<EmployeeBulkResult> created(List<Employee> group) {
+        List<EmployeeBulkResult> results = new ArrayList<>();
+        for (int i = 0; i < group.size(); i++) {
+            results.add(EmployeeBulkResult.builder().index(i).id(100L + i).email(group.get(i).getEmail())
+                    .status(EmployeeBulkResult.Status.CREATED).build());
+        }
+        return results;
+    }
+
+}
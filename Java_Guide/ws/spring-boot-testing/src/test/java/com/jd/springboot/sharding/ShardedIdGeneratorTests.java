@@ -0,0 +1,66 @@
+package com.jd.springboot.sharding;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ShardedIdGeneratorTests {
+
+    @Test
+    @DisplayName("Test ids are unique over all shards and increasing per shard, also past the sequence of one millisecond")
+    public void givenManyIds_whenNext_thenUniqueAndIncreasingPerShard() {
+        //given
+        ShardedIdGenerator shardedIdGenerator = new ShardedIdGenerator(5);
+        List<List<Long>> idsByShard = List.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+
+        //When
+        for (int i = 0; i < 6000; i++) {
+            idsByShard.get(i % 3).add(shardedIdGenerator.next(i % 3));
+        }
+
+        //Then
+        Set<Long> unique = new HashSet<>();
+        idsByShard.forEach(unique::addAll);
+        Assertions.assertThat(unique).hasSize(6000).allMatch(id -> id > 0);
+        idsByShard.forEach(ids -> Assertions.assertThat(ids).isSorted().doesNotHaveDuplicates());
+    }
+
+    @Test
+    @DisplayName("Test the largest id of the layout is still exact as a JavaScript number")
+    public void givenLargestFields_whenLayout_thenIdFitsIn53Bits() {
+        int bits = ShardedIdGenerator.MILLIS_BITS + ShardedIdGenerator.SHARD_BITS + ShardedIdGenerator.NODE_BITS
+                + ShardedIdGenerator.SEQUENCE_BITS;
+
+        Assertions.assertThat(bits).isLessThanOrEqualTo(53);
+        Assertions.assertThat(new ShardedIdGenerator(ShardedIdGenerator.MAX_NODES - 1).next(ShardedIdGenerator.MAX_SHARDS - 1))
+                .isLessThanOrEqualTo((1L << 53) - 1);
+    }
+
+    @Test
+    @DisplayName("Test the shard can be read back from the id")
+    public void givenShard_whenNext_thenShardOfId() {
+        //given
+        ShardedIdGenerator shardedIdGenerator = new ShardedIdGenerator(ShardedIdGenerator.MAX_NODES - 1);
+
+        //When
+        //Then
+        for (int shard = 0; shard < ShardedIdGenerator.MAX_SHARDS; shard++) {
+            Assertions.assertThat(ShardedIdGenerator.shardOf(shardedIdGenerator.next(shard))).isEqualTo(shard);
+        }
+    }
+
+    @Test
+    @DisplayName("Test node ids and shards outside the id layout are rejected")
+    public void givenOutOfRange_whenCreateOrNext_thenIllegalArgument() {
+        Assertions.assertThatThrownBy(() -> new ShardedIdGenerator(ShardedIdGenerator.MAX_NODES))
+                .isInstanceOf(IllegalArgumentException.class);
+        Assertions.assertThatThrownBy(() -> new ShardedIdGenerator(0).next(ShardedIdGenerator.MAX_SHARDS))
+                .isInstanceOf(IllegalArgumentException.class);
+        Assertions.assertThatThrownBy(() -> new ShardedIdGenerator(0).next(-1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
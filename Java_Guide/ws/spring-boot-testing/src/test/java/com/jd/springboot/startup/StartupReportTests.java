@@ -0,0 +1,35 @@
+package com.jd.springboot.startup;
+
+import java.util.Map;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+public class StartupReportTests {
+
+    @Test
+    @DisplayName("Test phases are reported in startup order, repeated steps added up, nested beans left out")
+    public void givenRecordedSteps_whenPhases_thenPhasesInOrder() {
+        //given
+        BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(100);
+        applicationStartup.start("spring.boot.application.environment-prepared").end();
+        StartupStep refresh = applicationStartup.start("spring.context.refresh");
+        applicationStartup.start("spring.data.repository.scanning").end();
+        applicationStartup.start("spring.data.repository.scanning").end();
+        StartupStep entityManagerFactory = applicationStartup.start("spring.beans.instantiate").tag("beanName", "entityManagerFactory");
+        applicationStartup.start("spring.beans.instantiate").tag("beanName", "dataSource").end();
+        entityManagerFactory.end();
+        applicationStartup.start("spring.beans.instantiate").tag("beanName", "employeeController").end();
+        refresh.end();
+
+        //When
+        Map<String, Long> phases = StartupReport.phases(applicationStartup.getBufferedTimeline().getEvents());
+
+        //Then
+        Assertions.assertThat(phases.keySet()).startsWith("environment prepared", "context refresh", "-- repository scanning")
+                .hasSize(5).contains("- bean entityManagerFactory", "- bean employeeController");
+        Assertions.assertThat(phases.values()).allMatch(millis -> millis >= 0);
+    }
+}
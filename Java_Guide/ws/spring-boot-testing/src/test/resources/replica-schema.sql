@@ -0,0 +1,6 @@
+-- stands in for a replica that hasn't caught up: one employee the primary doesn't have
+-- and one the tests write on the primary, still with its old last name
+CREATE TABLE IF NOT EXISTS employees (id BIGINT NOT NULL PRIMARY KEY, fisrt_name VARCHAR(255), last_name VARCHAR(255),
+    email VARCHAR(255), version BIGINT NOT NULL, CONSTRAINT uk_employees_email UNIQUE (email));
+MERGE INTO employees KEY (id) VALUES (1000, 'Replica', 'Only', 'replica.only@gmail.com', 0);
+MERGE INTO employees KEY (id) VALUES (1001, 'Lagging', 'Old', 'lagging@gmail.com', 0);